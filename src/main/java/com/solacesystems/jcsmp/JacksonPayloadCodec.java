@@ -0,0 +1,58 @@
+package com.solacesystems.jcsmp;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes payloads as JSON with Jackson, streaming into a reusable per thread buffer. Decoding reads
+ * directly from the attachment buffer.
+ * <p>
+ * This is the fallback codec: it supports every payload type except raw bytes and Protobuf messages, which
+ * Jackson would turn into base64 strings respectively bean dumps. It must be the last codec asked, after
+ * any codec for a specific type.
+ */
+public class JacksonPayloadCodec implements SolacePayloadCodec {
+
+    private static final Class<?> PROTOBUF_MESSAGE = protobufMessageClass();
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new JacksonPayloadCodec.
+     *
+     * @param objectMapper The object mapper to read and write JSON with.
+     */
+    public JacksonPayloadCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return type != byte[].class
+                && !ByteBuffer.class.isAssignableFrom(type)
+                && (PROTOBUF_MESSAGE == null || !PROTOBUF_MESSAGE.isAssignableFrom(type));
+    }
+
+    @Override
+    public void encode(Object payload, BytesXMLMessage message) throws IOException {
+        final ReusableByteArrayOutputStream buffer = ReusableByteArrayOutputStream.forCurrentThread();
+        objectMapper.writeValue(buffer, payload);
+        message.writeAttachment(buffer.toInputStream());
+    }
+
+    @Override
+    public <T> T decode(BytesXMLMessage message, Class<T> type) {
+        return objectMapper.readValue(new ByteBufferInputStream(SolaceByteBufferPayloads.readAttachment(message)), type);
+    }
+
+    private static Class<?> protobufMessageClass() {
+        // protobuf-java is optional
+        try {
+            return Class.forName("com.google.protobuf.MessageLite", false, JacksonPayloadCodec.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.solacesystems.jcsmp;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+import java.io.IOException;
+
+/**
+ * Encodes Protobuf messages, streaming into a reusable per thread buffer. Decoding parses directly from the
+ * attachment buffer with the parser of the generated message type.
+ */
+public class ProtobufPayloadCodec implements SolacePayloadCodec {
+
+    private static final ClassValue<Parser<?>> PARSERS = new ClassValue<>() {
+        @Override
+        protected Parser<?> computeValue(Class<?> type) {
+            try {
+                final MessageLite defaultInstance = (MessageLite) type.getMethod("getDefaultInstance").invoke(null);
+                return defaultInstance.getParserForType();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Not a generated Protobuf message: " + type.getName(), e);
+            }
+        }
+    };
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return MessageLite.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void encode(Object payload, BytesXMLMessage message) throws IOException {
+        final ReusableByteArrayOutputStream buffer = ReusableByteArrayOutputStream.forCurrentThread();
+        ((MessageLite) payload).writeTo(buffer);
+        message.writeAttachment(buffer.toInputStream());
+    }
+
+    @Override
+    public <T> T decode(BytesXMLMessage message, Class<T> type) throws IOException {
+        return type.cast(PARSERS.get(type).parseFrom(SolaceByteBufferPayloads.readAttachment(message)));
+    }
+}
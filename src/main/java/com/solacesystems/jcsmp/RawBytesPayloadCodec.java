@@ -0,0 +1,36 @@
+package com.solacesystems.jcsmp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Passes <code>byte[]</code> and {@link ByteBuffer} payloads through as is. <code>ByteBuffer</code>s are
+ * decoded as read-only views of the attachment.
+ */
+public class RawBytesPayloadCodec implements SolacePayloadCodec {
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return type == byte[].class || ByteBuffer.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void encode(Object payload, BytesXMLMessage message) throws IOException {
+        if (payload instanceof byte[] bytes) {
+            message.writeAttachment(bytes);
+        } else {
+            SolaceByteBufferPayloads.writeAttachment(message, (ByteBuffer) payload);
+        }
+    }
+
+    @Override
+    public <T> T decode(BytesXMLMessage message, Class<T> type) {
+        final ByteBuffer attachment = SolaceByteBufferPayloads.readAttachment(message);
+        if (type == byte[].class) {
+            final byte[] bytes = new byte[attachment.remaining()];
+            attachment.get(bytes);
+            return type.cast(bytes);
+        }
+        return type.cast(attachment);
+    }
+}
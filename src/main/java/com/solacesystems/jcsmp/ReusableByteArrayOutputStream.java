@@ -0,0 +1,41 @@
+package com.solacesystems.jcsmp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * A per thread output buffer for encoding payloads. The buffer is reused by the next encoding on the same
+ * thread, unless it grew beyond {@link #MAX_RETAINED_CAPACITY}.
+ */
+final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<ReusableByteArrayOutputStream> BUFFERS =
+            ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+
+    private ReusableByteArrayOutputStream() {
+        super(4096);
+    }
+
+    /**
+     * Returns the empty buffer of the current thread.
+     */
+    static ReusableByteArrayOutputStream forCurrentThread() {
+        ReusableByteArrayOutputStream buffer = BUFFERS.get();
+        if (buffer.buf.length > MAX_RETAINED_CAPACITY) {
+            buffer = new ReusableByteArrayOutputStream();
+            BUFFERS.set(buffer);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Returns a stream over the written bytes, without copying them.
+     */
+    InputStream toInputStream() {
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+}
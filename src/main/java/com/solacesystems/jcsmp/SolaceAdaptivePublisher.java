@@ -0,0 +1,369 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publisher for guaranteed messages that collects messages into batches, Nagle-style, and sends each batch
+ * with a single {@link XMLMessageProducer#sendMultiple(JCSMPSendMultipleEntry[], int, int, int)}. The batch
+ * size and the time a batch lingers for more messages adapt to the load:
+ * <ul>
+ *     <li>While at least 75 % of the publish acknowledgement window are in flight, sends would wait for
+ *     acknowledgements anyway. Batch size and linger time grow, the linger time up to a quarter of the
+ *     smoothed acknowledgement round-trip time or the configured maximum.</li>
+ *     <li>While at most 25 % of the window are in flight, batch size and linger time shrink again, down to
+ *     sending each message immediately.</li>
+ * </ul>
+ * To measure the round-trip time, the correlation key of each message is wrapped before sending. The given
+ * event handler receives the original correlation key. Send failures are reported to the event handler as
+ * well. Direct messages are sent in the batches but not tracked, as they are not acknowledged.
+ */
+public class SolaceAdaptivePublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceAdaptivePublisher.class);
+
+    /**
+     * The maximum number of messages the API accepts in a single <code>sendMultiple</code>.
+     */
+    public static final int MAX_BATCH_SIZE = 50;
+
+    /**
+     * The default maximum time a batch waits for more messages.
+     */
+    public static final Duration DEFAULT_MAX_LINGER = Duration.ofMillis(1);
+
+    private static final int DEFAULT_WINDOW_SIZE = 255;
+    private static final int HIGH_OCCUPANCY_PERCENT = 75;
+    private static final int LOW_OCCUPANCY_PERCENT = 25;
+
+    private final XMLMessageProducer producer;
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler;
+    private final int windowSize;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchStarted = lock.newCondition();
+    private final JCSMPSendMultipleEntry[] entries;
+    private int count;
+    private long firstNanos;
+    private volatile int batchSize = 1;
+    private volatile long lingerNanos;
+    private volatile boolean closed;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long smoothedRoundTripNanos;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final Thread lingerThread;
+
+    /**
+     * Constructs a new SolaceAdaptivePublisher with a maximum batch size of {@link #MAX_BATCH_SIZE} and the
+     * {@link #DEFAULT_MAX_LINGER}.
+     *
+     * @param session      The connected session to publish with.
+     * @param eventHandler The handler for publish acknowledgements and errors.
+     * @throws JCSMPException if the producer can not be created.
+     */
+    public SolaceAdaptivePublisher(JCSMPSession session,
+                                   JCSMPStreamingPublishCorrelatingEventHandler eventHandler) throws JCSMPException {
+        this(session, eventHandler, MAX_BATCH_SIZE, DEFAULT_MAX_LINGER);
+    }
+
+    /**
+     * Constructs a new SolaceAdaptivePublisher and creates its producer on the given session.
+     *
+     * @param session      The connected session to publish with.
+     * @param eventHandler The handler for publish acknowledgements and errors.
+     * @param maxBatchSize The upper bound of the batch size, at most {@link #MAX_BATCH_SIZE}.
+     * @param maxLinger    The upper bound of the time a batch waits for more messages.
+     * @throws JCSMPException if the producer can not be created.
+     */
+    public SolaceAdaptivePublisher(JCSMPSession session,
+                                   JCSMPStreamingPublishCorrelatingEventHandler eventHandler,
+                                   int maxBatchSize,
+                                   Duration maxLinger) throws JCSMPException {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        this.eventHandler = eventHandler;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        final Object windowSizeProperty = session.getProperty(JCSMPProperties.PUB_ACK_WINDOW_SIZE);
+        this.windowSize = windowSizeProperty instanceof Integer ? (Integer) windowSizeProperty : DEFAULT_WINDOW_SIZE;
+        this.entries = new JCSMPSendMultipleEntry[maxBatchSize];
+        for (int i = 0; i < maxBatchSize; i++) {
+            entries[i] = JCSMPFactory.onlyInstance().createSendMultipleEntry(null, null);
+        }
+        this.producer = session.getMessageProducer(new CorrelationHandler());
+        this.lingerThread = new Thread(this::lingerLoop, "solace-adaptive-publisher");
+        this.lingerThread.setDaemon(true);
+        this.lingerThread.start();
+    }
+
+    /**
+     * Adds the message to the current batch. The batch is sent when it reached the current batch size or
+     * its linger time elapsed, immediately if the linger time is zero.
+     *
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @throws IllegalStateException if the publisher is closed.
+     */
+    public void publish(XMLMessage message, Destination destination) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Publisher is closed");
+            }
+            entries[count].setMessage(message);
+            entries[count].setDestination(destination);
+            if (count++ == 0) {
+                firstNanos = System.nanoTime();
+                batchStarted.signal();
+            }
+            if (count >= batchSize || lingerNanos == 0) {
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void lingerLoop() {
+        lock.lock();
+        try {
+            while (!closed) {
+                if (count == 0) {
+                    batchStarted.await();
+                    continue;
+                }
+                final long remaining = firstNanos + lingerNanos - System.nanoTime();
+                if (remaining > 0) {
+                    batchStarted.awaitNanos(remaining);
+                } else {
+                    flush();
+                }
+            }
+            if (count > 0) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        final int length = count;
+        count = 0;
+        final long now = System.nanoTime();
+        int tracked = 0;
+        for (int i = 0; i < length; i++) {
+            final XMLMessage message = entries[i].getMessage();
+            if (message.getDeliveryMode() != DeliveryMode.DIRECT) {
+                message.setCorrelationKey(new Correlation(message.getCorrelationKey(), now));
+                tracked++;
+            }
+        }
+        // counted before sending, acknowledgements may arrive before sendMultiple returns
+        inFlight.addAndGet(tracked);
+        int sentCount = 0;
+        JCSMPException cause = null;
+        try {
+            sentCount = producer.sendMultiple(entries, 0, length, 0);
+            if (sentCount < length) {
+                cause = new JCSMPException("Sent " + sentCount + " of " + length + " messages");
+            }
+        } catch (JCSMPException e) {
+            cause = e;
+        } catch (RuntimeException e) {
+            cause = new JCSMPException(e.getMessage(), e);
+        }
+        try {
+            if (sentCount > 0) {
+                batches.increment();
+                sent.add(sentCount);
+            }
+            if (cause != null) {
+                logger.error("Failed to send {} of {} messages", length - sentCount, length, cause);
+                failed(sentCount, length, cause);
+            }
+        } finally {
+            for (int i = 0; i < length; i++) {
+                entries[i].setMessage(null);
+                entries[i].setDestination(null);
+            }
+        }
+        adapt();
+    }
+
+    /**
+     * Reports the unsent messages to the event handler. A failed <code>sendMultiple</code> does not tell
+     * how many messages it sent, so all of them are reported; a message that was acknowledged meanwhile is
+     * skipped, and the acknowledgement of a reported one is dropped.
+     */
+    private void failed(int offset, int length, JCSMPException cause) {
+        final long timestamp = System.currentTimeMillis();
+        for (int i = offset; i < length; i++) {
+            final XMLMessage message = entries[i].getMessage();
+            final Object key = message.getCorrelationKey();
+            message.setCorrelationKey(unwrap(key));
+            if (complete(key)) {
+                eventHandler.handleErrorEx(unwrap(key), cause, timestamp);
+            }
+        }
+    }
+
+    /**
+     * Completes a sent message once, by its acknowledgement or its failure.
+     *
+     * @return <code>false</code> if the message was completed before.
+     */
+    private boolean complete(Object key) {
+        if (!(key instanceof Correlation)) {
+            return true;
+        }
+        final Correlation correlation = (Correlation) key;
+        if (!correlation.compareAndSet(false, true)) {
+            return false;
+        }
+        inFlight.decrementAndGet();
+        return true;
+    }
+
+    private void adapt() {
+        final int occupancyPercent = inFlight.get() * 100 / windowSize;
+        if (occupancyPercent >= HIGH_OCCUPANCY_PERCENT) {
+            batchSize = Math.min(maxBatchSize, batchSize * 2);
+            lingerNanos = Math.min(maxLingerNanos, Math.max(lingerNanos * 2, smoothedRoundTripNanos / 4));
+        } else if (occupancyPercent <= LOW_OCCUPANCY_PERCENT) {
+            batchSize = Math.max(1, batchSize / 2);
+            lingerNanos = lingerNanos / 2;
+        }
+    }
+
+    private static Object unwrap(Object key) {
+        return key instanceof Correlation ? ((Correlation) key).key : key;
+    }
+
+    /**
+     * @return The current number of messages collected before a batch is sent.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return The current time in nanoseconds a batch waits for more messages.
+     */
+    public long getLingerNanos() {
+        return lingerNanos;
+    }
+
+    /**
+     * @return The smoothed acknowledgement round-trip time in nanoseconds, 0 before the first acknowledgement.
+     */
+    public long getSmoothedRoundTripNanos() {
+        return smoothedRoundTripNanos;
+    }
+
+    /**
+     * @return The number of sent guaranteed messages not acknowledged yet.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The publish acknowledgement window size of the session.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return The number of sent batches.
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * @return The number of sent messages.
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * Sends the pending batch and closes the producer.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchStarted.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            lingerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        producer.close();
+        logger.debug("Closed after {} messages in {} batches", sent.sum(), batches.sum());
+    }
+
+    /**
+     * The wrapped correlation key of a guaranteed message, set once the message is completed.
+     */
+    private static final class Correlation extends AtomicBoolean {
+        private final Object key;
+        private final long sentNanos;
+
+        private Correlation(Object key, long sentNanos) {
+            this.key = key;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    private final class CorrelationHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+
+        @Override
+        public void responseReceivedEx(Object key) {
+            if (acknowledged(key)) {
+                eventHandler.responseReceivedEx(unwrap(key));
+            }
+        }
+
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            if (acknowledged(key)) {
+                eventHandler.handleErrorEx(unwrap(key), cause, timestamp);
+            }
+        }
+
+        private boolean acknowledged(Object key) {
+            if (!complete(key)) {
+                return false;
+            }
+            if (key instanceof Correlation) {
+                // acknowledgements arrive on the single context thread
+                final long sample = System.nanoTime() - ((Correlation) key).sentNanos;
+                final long smoothed = smoothedRoundTripNanos;
+                smoothedRoundTripNanos = smoothed == 0 ? sample : smoothed + (sample - smoothed) / 8;
+            }
+            return true;
+        }
+    }
+}
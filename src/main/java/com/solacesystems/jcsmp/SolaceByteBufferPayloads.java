@@ -0,0 +1,61 @@
+package com.solacesystems.jcsmp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers to publish and receive binary attachments as {@link ByteBuffer}s. Payloads are streamed from the
+ * given buffers into the message, without copying them into an intermediate <code>byte[]</code> first. The
+ * positions of the given buffers are not changed.
+ */
+public final class SolaceByteBufferPayloads {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    /**
+     * Writes the remaining bytes of the given buffer as the binary attachment of the message. A heap buffer
+     * spanning its whole backing array is passed to the message as is.
+     *
+     * @param message The message to write the attachment to.
+     * @param payload The payload, e.g. a direct buffer.
+     * @throws IOException if the payload can not be read.
+     */
+    public static void writeAttachment(BytesXMLMessage message, ByteBuffer payload) throws IOException {
+        if (payload.hasArray() && payload.arrayOffset() + payload.position() == 0
+                && payload.remaining() == payload.array().length) {
+            message.writeAttachment(payload.array());
+        } else {
+            message.writeAttachment(new ByteBufferInputStream(payload));
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffers, in order, as the binary attachment of the message.
+     *
+     * @param message  The message to write the attachment to.
+     * @param payloads The payload parts, e.g. a header and a body buffer.
+     * @throws IOException if the payload can not be read.
+     */
+    public static void writeAttachment(BytesXMLMessage message, ByteBuffer... payloads) throws IOException {
+        if (payloads.length == 1) {
+            writeAttachment(message, payloads[0]);
+        } else {
+            message.writeAttachment(new ByteBufferInputStream(payloads));
+        }
+    }
+
+    /**
+     * Returns a read-only view of the binary attachment of the given message, without copying it.
+     *
+     * @param message The received message.
+     * @return The attachment, or an empty buffer if the message has none.
+     */
+    public static ByteBuffer readAttachment(BytesXMLMessage message) {
+        final ByteBuffer attachment = message.getAttachmentByteBuffer();
+        return attachment == null ? EMPTY : attachment.asReadOnlyBuffer();
+    }
+
+    private SolaceByteBufferPayloads() {
+        // no instantiation
+    }
+}
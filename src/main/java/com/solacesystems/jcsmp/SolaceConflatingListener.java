@@ -0,0 +1,160 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link XMLMessageListener} for high-rate direct subscriptions that decouples a slow handler from the
+ * receive thread. Each received message overwrites the slot of its key, e.g. its topic, and a handler thread
+ * delivers the latest message of each updated key. The handler never works through a backlog, and the
+ * receive thread never waits for the handler, so the API's receive buffer does not fill up.
+ * <p>
+ * The number of keys waiting for delivery is bounded. Messages of new keys are dropped while the bound is
+ * reached.
+ */
+public class SolaceConflatingListener implements XMLMessageListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceConflatingListener.class);
+
+    /**
+     * The default maximum number of keys waiting for delivery.
+     */
+    public static final int DEFAULT_MAX_PENDING_KEYS = 10_000;
+
+    private final Function<BytesXMLMessage, Object> keyExtractor;
+    private final XMLMessageListener delegate;
+    private final Map<Object, BytesXMLMessage> slots = new ConcurrentHashMap<>();
+    private final BlockingQueue<Object> updatedKeys;
+    private final Thread handlerThread;
+    private volatile boolean closed;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    /**
+     * Constructs a new SolaceConflatingListener keyed by the destination of the messages.
+     *
+     * @param delegate The handler receiving the latest message per destination.
+     */
+    public SolaceConflatingListener(XMLMessageListener delegate) {
+        this(XMLMessage::getDestination, delegate, DEFAULT_MAX_PENDING_KEYS);
+    }
+
+    /**
+     * Constructs a new SolaceConflatingListener and starts its handler thread.
+     *
+     * @param keyExtractor   Returns the conflation key of a message, e.g. an id from its properties.
+     * @param delegate       The handler receiving the latest message per key.
+     * @param maxPendingKeys The maximum number of keys waiting for delivery.
+     */
+    public SolaceConflatingListener(Function<BytesXMLMessage, Object> keyExtractor,
+                                    XMLMessageListener delegate,
+                                    int maxPendingKeys) {
+        this.keyExtractor = keyExtractor;
+        this.delegate = delegate;
+        this.updatedKeys = new LinkedBlockingQueue<>(maxPendingKeys);
+        this.handlerThread = new Thread(this::deliver, "solace-conflating-listener");
+        this.handlerThread.setDaemon(true);
+        this.handlerThread.start();
+    }
+
+    @Override
+    public void onReceive(BytesXMLMessage message) {
+        received.increment();
+        final Object key = keyExtractor.apply(message);
+        if (slots.put(key, message) != null) {
+            // the key is already waiting for delivery
+            conflated.increment();
+        } else if (!updatedKeys.offer(key)) {
+            slots.remove(key, message);
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void onException(JCSMPException exception) {
+        delegate.onException(exception);
+    }
+
+    private void deliver() {
+        while (!closed) {
+            final Object key;
+            try {
+                key = updatedKeys.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final BytesXMLMessage message = slots.remove(key);
+            if (message == null) {
+                continue;
+            }
+            try {
+                delegate.onReceive(message);
+                delivered.increment();
+            } catch (RuntimeException e) {
+                logger.error("Handler failed for latest message of {}", key, e);
+            }
+        }
+    }
+
+    /**
+     * @return The number of received messages.
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * @return The number of messages replaced by a newer message of the same key before delivery.
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    /**
+     * @return The number of messages dropped because too many keys were waiting for delivery.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of messages delivered to the handler.
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * @return The number of keys waiting for delivery.
+     */
+    public int getPendingCount() {
+        return updatedKeys.size();
+    }
+
+    /**
+     * Stops the handler thread. Messages waiting for delivery are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        handlerThread.interrupt();
+        try {
+            handlerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        slots.clear();
+        updatedKeys.clear();
+    }
+}
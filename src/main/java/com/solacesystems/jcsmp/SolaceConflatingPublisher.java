@@ -0,0 +1,141 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last-value publisher for rapidly changing state like prices or device status. Within each conflation window
+ * only the newest message per key is kept, all pending messages are sent when the window ends. A message
+ * replaced by a newer one is never sent and is returned by {@link #publish(Object, XMLMessage, Destination)},
+ * so the caller can reuse it.
+ * <p>
+ * The messages of a key are sent in publish order, the messages of different keys in no particular order.
+ */
+public class SolaceConflatingPublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceConflatingPublisher.class);
+
+    private final XMLMessageProducer producer;
+    private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> flushTask;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructs a new SolaceConflatingPublisher flushing at the end of each window.
+     *
+     * @param producer      The producer to send with.
+     * @param taskScheduler The scheduler running the flushes.
+     * @param window        The conflation window.
+     */
+    public SolaceConflatingPublisher(XMLMessageProducer producer, TaskScheduler taskScheduler, Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.producer = producer;
+        this.flushTask = taskScheduler.scheduleAtFixedRate(this::flush, window);
+    }
+
+    /**
+     * Keeps the message as the newest value of the key until the current window ends, replacing a pending
+     * message of the same key.
+     *
+     * @param key         The conflation key, e.g. an instrument or device id.
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @return The replaced message, which will not be sent, or <code>null</code> if no message of the key was
+     * pending.
+     */
+    public XMLMessage publish(Object key, XMLMessage message, Destination destination) {
+        published.increment();
+        final Pending replaced = pending.put(key, new Pending(message, destination));
+        if (replaced == null) {
+            return null;
+        }
+        conflated.increment();
+        return replaced.message;
+    }
+
+    /**
+     * Sends the pending messages of all keys immediately.
+     */
+    public synchronized void flush() {
+        for (Object key : pending.keySet()) {
+            final Pending entry = pending.remove(key);
+            if (entry == null) {
+                continue;
+            }
+            try {
+                producer.send(entry.message, entry.destination);
+                sent.increment();
+            } catch (JCSMPException | RuntimeException e) {
+                failures.increment();
+                logger.error("Failed to send latest value of {} to {}", key, entry.destination, e);
+            }
+        }
+    }
+
+    /**
+     * @return The number of published messages.
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * @return The number of messages replaced by a newer message of the same key and not sent.
+     */
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    /**
+     * @return The number of sent messages.
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return The number of messages the producer failed to send.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The number of keys with a message waiting for the end of the window.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the periodic flush and sends the pending messages. The producer is not closed.
+     */
+    @Override
+    public void close() {
+        flushTask.cancel(false);
+        flush();
+    }
+
+    private static final class Pending {
+        private final XMLMessage message;
+        private final Destination destination;
+
+        private Pending(XMLMessage message, Destination destination) {
+            this.message = message;
+            this.destination = destination;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.solacesystems.jcsmp;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, concurrent cache of {@link Topic} and {@link Queue} destinations. The JCSMP factory creates and
+ * validates a new destination object on every call, this cache resolves each name only once. When the cache
+ * is full, entries are evicted in CLOCK order: an entry that was read since the last sweep gets a second
+ * chance, so frequently used destinations stay cached.
+ */
+public class SolaceDestinationCache {
+
+    /**
+     * The default maximum number of topics and of queues kept in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final ClockCache<Topic> topics;
+    private final ClockCache<Queue> queues;
+
+    /**
+     * Constructs a new SolaceDestinationCache with the {@link #DEFAULT_MAXIMUM_SIZE}.
+     */
+    public SolaceDestinationCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Constructs a new SolaceDestinationCache.
+     *
+     * @param maximumSize The maximum number of topics and of queues kept in the cache.
+     */
+    public SolaceDestinationCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be greater than 0");
+        }
+        this.topics = new ClockCache<>(maximumSize, name -> JCSMPFactory.onlyInstance().createTopic(name));
+        this.queues = new ClockCache<>(maximumSize, name -> JCSMPFactory.onlyInstance().createQueue(name));
+    }
+
+    /**
+     * Returns the cached topic with the given name, creating it on the first call.
+     *
+     * @param name The topic name.
+     * @return The topic.
+     */
+    public Topic getTopic(String name) {
+        return topics.get(name);
+    }
+
+    /**
+     * Returns the cached queue with the given name, creating it on the first call.
+     *
+     * @param name The queue name.
+     * @return The queue.
+     */
+    public Queue getQueue(String name) {
+        return queues.get(name);
+    }
+
+    /**
+     * @return The number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to create a new destination.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of destinations evicted because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of topics and queues currently cached.
+     */
+    public int size() {
+        return topics.entries.size() + queues.entries.size();
+    }
+
+    /**
+     * Removes all cached destinations. The metrics are not reset.
+     */
+    public void clear() {
+        topics.entries.clear();
+        queues.entries.clear();
+    }
+
+    private final class ClockCache<D> {
+        private final int maximumSize;
+        private final Function<String, D> destinationFactory;
+        private final Map<String, Entry<D>> entries = new ConcurrentHashMap<>();
+        private Iterator<Map.Entry<String, Entry<D>>> hand;
+
+        private ClockCache(int maximumSize, Function<String, D> destinationFactory) {
+            this.maximumSize = maximumSize;
+            this.destinationFactory = destinationFactory;
+        }
+
+        private D get(String name) {
+            final Entry<D> entry = entries.get(name);
+            if (entry != null) {
+                if (!entry.referenced) {
+                    entry.referenced = true;
+                }
+                hits.increment();
+                return entry.destination;
+            }
+
+            misses.increment();
+            final Entry<D> created = new Entry<>(destinationFactory.apply(name));
+            final Entry<D> existing = entries.putIfAbsent(name, created);
+            if (existing != null) {
+                return existing.destination;
+            }
+            if (entries.size() > maximumSize) {
+                evict();
+            }
+            return created.destination;
+        }
+
+        private synchronized void evict() {
+            while (entries.size() > maximumSize) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                final Map.Entry<String, Entry<D>> candidate = hand.next();
+                final Entry<D> entry = candidate.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(candidate.getKey(), entry)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static final class Entry<D> {
+        private final D destination;
+        private volatile boolean referenced;
+
+        private Entry(D destination) {
+            this.destination = destination;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.solacesystems.jcsmp;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of recently seen message ids. Ids are hashed to 64 bit fingerprints and stored in a
+ * set-associative table of primitive <code>long</code> arrays: each fingerprint maps to a bucket of 8 slots,
+ * a full bucket replaces its oldest entry. Entries expire after the time to live. The memory footprint is
+ * 16 bytes per slot, independent of the id length.
+ * <p>
+ * The optional Bloom filter front answers "definitely not seen" for new ids, the common case, without
+ * comparing against the bucket. It consists of two generations rotated once per time to live, so every id
+ * inserted within the time to live is in one of them. With the Bloom filter, concurrent calls with the same
+ * new id may both report it as not seen; the ids of a flow are delivered sequentially, so a listener is not
+ * affected.
+ */
+public class SolaceDuplicateDetector {
+
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 64;
+    private static final long EMPTY = 0L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] fingerprints;
+    private final long[] insertionNanos;
+    private final int bucketMask;
+    private final long ttlNanos;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final BloomFilter bloomFilter;
+
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a new SolaceDuplicateDetector without a Bloom filter front.
+     *
+     * @param capacity The number of ids to remember, rounded up to a power of 2.
+     * @param ttl      The time an id is remembered.
+     */
+    public SolaceDuplicateDetector(int capacity, Duration ttl) {
+        this(capacity, ttl, false);
+    }
+
+    /**
+     * Constructs a new SolaceDuplicateDetector.
+     *
+     * @param capacity    The number of ids to remember, rounded up to a power of 2.
+     * @param ttl         The time an id is remembered.
+     * @param bloomFilter <code>true</code> to add a Bloom filter front of about 10 bits per id and generation.
+     */
+    public SolaceDuplicateDetector(int capacity, Duration ttl, boolean bloomFilter) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        final int wanted = (capacity + WAYS - 1) / WAYS;
+        final int buckets = wanted <= 1 ? 1 : Integer.highestOneBit(wanted - 1) << 1;
+        this.fingerprints = new long[buckets * WAYS];
+        this.insertionNanos = new long[buckets * WAYS];
+        this.bucketMask = buckets - 1;
+        this.ttlNanos = ttl.toNanos();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.bloomFilter = bloomFilter ? new BloomFilter(buckets * WAYS * 10, ttlNanos) : null;
+    }
+
+    /**
+     * Remembers the id and returns whether it was seen before within the time to live.
+     *
+     * @param id The message id.
+     * @return <code>true</code> if the id was not seen before.
+     */
+    public boolean markSeen(CharSequence id) {
+        return markSeen(fingerprint(id));
+    }
+
+    /**
+     * Remembers the fingerprint and returns whether it was seen before within the time to live.
+     *
+     * @param fingerprint The 64 bit fingerprint of the message id.
+     * @return <code>true</code> if the fingerprint was not seen before.
+     */
+    public boolean markSeen(long fingerprint) {
+        final long key = key(fingerprint);
+        final long now = System.nanoTime();
+        final boolean known = bloomFilter == null || bloomFilter.putIfAbsent(key, now);
+        final int bucket = (int) (key >>> 32) & bucketMask;
+        final int base = bucket * WAYS;
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            int victim = base;
+            long victimAge = -1;
+            for (int slot = base; slot < base + WAYS; slot++) {
+                final long age = fingerprints[slot] == EMPTY ? Long.MAX_VALUE : now - insertionNanos[slot];
+                if (known && fingerprints[slot] == key && age < ttlNanos) {
+                    duplicates.increment();
+                    return false;
+                }
+                if (age > victimAge) {
+                    victim = slot;
+                    victimAge = age;
+                }
+            }
+            if (victimAge < ttlNanos) {
+                evictions.increment();
+            }
+            fingerprints[victim] = key;
+            insertionNanos[victim] = now;
+            return true;
+        }
+    }
+
+    /**
+     * Removes the id, e.g. because its message was not processed and a redelivery must not be dropped.
+     *
+     * @param id The message id.
+     */
+    public void forget(CharSequence id) {
+        forget(fingerprint(id));
+    }
+
+    /**
+     * Removes the fingerprint. The Bloom filter front keeps it, so a later <code>markSeen</code> compares
+     * against the bucket and reports it as not seen.
+     *
+     * @param fingerprint The 64 bit fingerprint of the message id.
+     */
+    public void forget(long fingerprint) {
+        final long key = key(fingerprint);
+        final int bucket = (int) (key >>> 32) & bucketMask;
+        final int base = bucket * WAYS;
+        synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+            for (int slot = base; slot < base + WAYS; slot++) {
+                if (fingerprints[slot] == key) {
+                    fingerprints[slot] = EMPTY;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of ids detected as duplicates.
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return The number of ids replaced before their time to live, because their bucket was full.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of slots of the table.
+     */
+    public int getCapacity() {
+        return fingerprints.length;
+    }
+
+    private static long fingerprint(CharSequence id) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long key(long fingerprint) {
+        final long key = mix(fingerprint);
+        return key == EMPTY ? 1L : key;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class BloomFilter {
+        private static final int HASHES = 4;
+
+        private final int bitMask;
+        private final long rotationNanos;
+        private volatile AtomicLongArray current;
+        private volatile AtomicLongArray previous;
+        private volatile long rotatedNanos;
+
+        private BloomFilter(int bits, long rotationNanos) {
+            final int size = Integer.highestOneBit(Math.max(64, bits) - 1) << 1;
+            this.bitMask = size - 1;
+            this.rotationNanos = rotationNanos;
+            this.current = new AtomicLongArray(size / 64);
+            this.previous = new AtomicLongArray(size / 64);
+            this.rotatedNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds the key and returns <code>false</code> if it was definitely absent.
+         */
+        private boolean putIfAbsent(long key, long now) {
+            if (now - rotatedNanos >= rotationNanos) {
+                rotate(now);
+            }
+            final AtomicLongArray generation = current;
+            final boolean present = contains(generation, key) || contains(previous, key);
+            for (int i = 0; i < HASHES; i++) {
+                final int bit = bit(key, i);
+                final long mask = 1L << bit;
+                final long word = generation.get(bit >>> 6);
+                if ((word & mask) == 0) {
+                    generation.getAndAccumulate(bit >>> 6, mask, (a, b) -> a | b);
+                }
+            }
+            return present;
+        }
+
+        private synchronized void rotate(long now) {
+            if (now - rotatedNanos >= rotationNanos) {
+                previous = current;
+                current = new AtomicLongArray(previous.length());
+                rotatedNanos = now;
+            }
+        }
+
+        private boolean contains(AtomicLongArray generation, long key) {
+            for (int i = 0; i < HASHES; i++) {
+                final int bit = bit(key, i);
+                if ((generation.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int bit(long key, int i) {
+            // double hashing with the two halves of the fingerprint
+            return (int) (key + i * (key >>> 32)) & bitMask;
+        }
+    }
+}
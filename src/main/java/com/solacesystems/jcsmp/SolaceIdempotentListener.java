@@ -0,0 +1,131 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link XMLMessageListener} that filters redelivered messages for non-idempotent handlers. Each message is
+ * identified by its replication group message id or a user property and passed to the handler only if the
+ * {@link SolaceDuplicateDetector} did not see the id before. Messages without an id are always passed. If the
+ * handler throws, the id is forgotten again so the redelivery of the message is passed as well.
+ * <p>
+ * On flows with client acknowledgement, duplicates must be acknowledged to be removed from the queue, see
+ * {@link #SolaceIdempotentListener(Function, SolaceDuplicateDetector, XMLMessageListener, boolean)}.
+ */
+public class SolaceIdempotentListener implements XMLMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceIdempotentListener.class);
+
+    private final Function<BytesXMLMessage, String> idExtractor;
+    private final SolaceDuplicateDetector duplicateDetector;
+    private final XMLMessageListener delegate;
+    private final boolean acknowledgeDuplicates;
+
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder missingIds = new LongAdder();
+
+    /**
+     * Constructs a new SolaceIdempotentListener identifying messages by their replication group message id.
+     *
+     * @param duplicateDetector The cache of seen ids.
+     * @param delegate          The handler receiving the messages not seen before.
+     */
+    public SolaceIdempotentListener(SolaceDuplicateDetector duplicateDetector, XMLMessageListener delegate) {
+        this(replicationGroupMessageId(), duplicateDetector, delegate, false);
+    }
+
+    /**
+     * Constructs a new SolaceIdempotentListener.
+     *
+     * @param idExtractor           Returns the id of a message or <code>null</code>, e.g.
+     *                              {@link #replicationGroupMessageId()} or {@link #userProperty(String)}.
+     * @param duplicateDetector     The cache of seen ids.
+     * @param delegate              The handler receiving the messages not seen before.
+     * @param acknowledgeDuplicates <code>true</code> to acknowledge duplicates, for flows with client
+     *                              acknowledgement.
+     */
+    public SolaceIdempotentListener(Function<BytesXMLMessage, String> idExtractor,
+                                    SolaceDuplicateDetector duplicateDetector,
+                                    XMLMessageListener delegate,
+                                    boolean acknowledgeDuplicates) {
+        this.idExtractor = idExtractor;
+        this.duplicateDetector = duplicateDetector;
+        this.delegate = delegate;
+        this.acknowledgeDuplicates = acknowledgeDuplicates;
+    }
+
+    /**
+     * @return An id extractor returning the replication group message id of guaranteed messages.
+     */
+    public static Function<BytesXMLMessage, String> replicationGroupMessageId() {
+        return message -> {
+            final ReplicationGroupMessageId id = message.getReplicationGroupMessageId();
+            return id == null ? null : id.toString();
+        };
+    }
+
+    /**
+     * @param name The name of a string user property.
+     * @return An id extractor returning the user property of a message.
+     */
+    public static Function<BytesXMLMessage, String> userProperty(String name) {
+        return message -> {
+            final SDTMap properties = message.getProperties();
+            if (properties == null) {
+                return null;
+            }
+            try {
+                return properties.getString(name);
+            } catch (SDTException e) {
+                logger.debug("User property {} is not a string", name, e);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public void onReceive(BytesXMLMessage message) {
+        final String id = idExtractor.apply(message);
+        if (id == null) {
+            missingIds.increment();
+        } else if (!duplicateDetector.markSeen(id)) {
+            duplicates.increment();
+            logger.debug("Dropping duplicate message {}", id);
+            if (acknowledgeDuplicates) {
+                message.ackMessage();
+            }
+            return;
+        }
+        try {
+            delegate.onReceive(message);
+        } catch (RuntimeException | Error e) {
+            if (id != null) {
+                // not processed, the redelivery must reach the delegate
+                duplicateDetector.forget(id);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void onException(JCSMPException exception) {
+        delegate.onException(exception);
+    }
+
+    /**
+     * @return The number of dropped duplicates.
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return The number of messages passed without an id.
+     */
+    public long getMissingIdCount() {
+        return missingIds.sum();
+    }
+}
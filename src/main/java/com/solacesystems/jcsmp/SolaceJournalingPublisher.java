@@ -0,0 +1,307 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.solacesystems.jcsmp.SessionEvent.DOWN_ERROR;
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTED;
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTING;
+
+/**
+ * Store-and-forward publisher. Messages are sent directly while the session is up and the publish
+ * acknowledgement window has room, otherwise they are appended to a {@link SolaceOutboundJournal}. A replay
+ * thread sends the journaled messages in order after the session reconnected and whenever acknowledgements
+ * free the window. While journaled messages are pending, new messages are journaled as well to keep the
+ * order.
+ * <p>
+ * A journaled guaranteed message stays in the journal until the broker acknowledged it. If the broker
+ * rejects it, the replay starts over at this message after a pause, so the messages sent after it are sent
+ * again as well, and a crash may send a journaled message twice. Replayed messages are {@link BytesMessage}s;
+ * their acknowledgements and errors are reported to the event handler with a <code>null</code> correlation
+ * key, as the journal does not keep the keys.
+ * <p>
+ * The correlation key of each guaranteed message is wrapped before sending, to count the messages in flight.
+ * The event handler receives the original correlation key.
+ * <p>
+ * The publisher must receive the session events, see
+ * {@link SpringJCSMPFactory#createJournalingPublisher(Context, SolaceOutboundJournal, JCSMPStreamingPublishCorrelatingEventHandler)}.
+ */
+public class SolaceJournalingPublisher implements SessionEventHandler, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceJournalingPublisher.class);
+
+    private static final int DEFAULT_WINDOW_SIZE = 255;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final long NOT_JOURNALED = -1;
+
+    private final SolaceOutboundJournal journal;
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler;
+    private final Object lock = new Object();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Thread replayThread;
+    private volatile XMLMessageProducer producer;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile long replayPausedUntilNanos = System.nanoTime();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    /**
+     * Constructs a new SolaceJournalingPublisher. It journals all messages until it is started.
+     *
+     * @param journal      The journal of messages that could not be sent directly.
+     * @param eventHandler The handler for publish acknowledgements and errors.
+     */
+    public SolaceJournalingPublisher(SolaceOutboundJournal journal,
+                                     JCSMPStreamingPublishCorrelatingEventHandler eventHandler) {
+        this.journal = journal;
+        this.eventHandler = eventHandler;
+        this.replayThread = new Thread(this::replayLoop, "solace-journal-replay");
+        this.replayThread.setDaemon(true);
+    }
+
+    /**
+     * Creates the producer on the connected session and starts replaying the messages journaled so far,
+     * including those of a previous run.
+     *
+     * @param jcsmpSession The connected session to publish with.
+     * @throws JCSMPException if the producer can not be created.
+     */
+    public void start(JCSMPSession jcsmpSession) throws JCSMPException {
+        synchronized (lock) {
+            final Object windowSizeProperty = jcsmpSession.getProperty(JCSMPProperties.PUB_ACK_WINDOW_SIZE);
+            if (windowSizeProperty instanceof Integer) {
+                windowSize = (Integer) windowSizeProperty;
+            }
+            producer = jcsmpSession.getMessageProducer(new CountingHandler());
+            connected = true;
+        }
+        replayThread.start();
+    }
+
+    /**
+     * Sends the message, or journals it if the session is down, the acknowledgement window is full, the send
+     * fails or journaled messages are pending.
+     *
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @throws IOException if the message had to be journaled and the journal failed.
+     */
+    public void publish(BytesXMLMessage message, Destination destination) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Publisher is closed");
+            }
+            if (connected && inFlight.get() < windowSize && journal.isEmpty()) {
+                try {
+                    send(message, destination);
+                    sent.increment();
+                    return;
+                } catch (JCSMPException e) {
+                    logger.warn("Failed to send message to {}, journaling it", destination, e);
+                }
+            }
+            journal.append(message, destination);
+            journaled.increment();
+        }
+    }
+
+    private void send(XMLMessage message, Destination destination) throws JCSMPException {
+        send(message, destination, NOT_JOURNALED);
+    }
+
+    private void send(XMLMessage message, Destination destination, long position) throws JCSMPException {
+        if (message.getDeliveryMode() == DeliveryMode.DIRECT) {
+            producer.send(message, destination);
+            return;
+        }
+        final Correlation correlation = new Correlation(message.getCorrelationKey(), position);
+        message.setCorrelationKey(correlation);
+        // counted before sending, the acknowledgement may arrive before send returns
+        inFlight.incrementAndGet();
+        try {
+            producer.send(message, destination);
+        } catch (JCSMPException | RuntimeException e) {
+            message.setCorrelationKey(correlation.key);
+            complete(correlation);
+            throw e;
+        }
+    }
+
+    /**
+     * Completes a guaranteed message of this publisher once, by its acknowledgement or its failure. Other
+     * callbacks, like session errors, did not count a message.
+     *
+     * @return <code>false</code> if the message was completed before.
+     */
+    private boolean complete(Object key) {
+        if (!(key instanceof Correlation)) {
+            return true;
+        }
+        if (!((Correlation) key).compareAndSet(false, true)) {
+            return false;
+        }
+        inFlight.decrementAndGet();
+        LockSupport.unpark(replayThread);
+        return true;
+    }
+
+    @Override
+    public void handleEvent(SessionEventArgs sessionEventArgs) {
+        final SessionEvent event = sessionEventArgs.getEvent();
+        if (event == RECONNECTING || event == DOWN_ERROR) {
+            connected = false;
+            logger.info("Session is down, journaling messages");
+        } else if (event == RECONNECTED && producer != null) {
+            connected = true;
+            LockSupport.unpark(replayThread);
+        }
+    }
+
+    private void replayLoop() {
+        // the context thread never takes the lock, as a send blocked by a reconnect waits for it
+        while (!closed) {
+            final boolean replayedOne;
+            synchronized (lock) {
+                replayedOne = !closed && replayNext();
+            }
+            if (!replayedOne) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private boolean replayNext() {
+        if (!connected || inFlight.get() >= windowSize || System.nanoTime() - replayPausedUntilNanos < 0) {
+            return false;
+        }
+        final SolaceOutboundJournal.Record record = journal.next();
+        if (record == null) {
+            return false;
+        }
+        try {
+            final BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+            message.setDeliveryMode(record.getDeliveryMode());
+            SolaceByteBufferPayloads.writeAttachment(message, record.getAttachment());
+            send(message, record.getDestination(), record.getPosition());
+        } catch (JCSMPException | RuntimeException e) {
+            logger.warn("Failed to replay journaled message, retrying", e);
+            journal.rewind(record.getPosition());
+            return false;
+        } catch (IOException e) {
+            logger.error("Failed to read journaled message, retrying", e);
+            journal.rewind(record.getPosition());
+            return false;
+        }
+        if (record.getDeliveryMode() == DeliveryMode.DIRECT) {
+            // direct messages are not acknowledged
+            journal.acknowledge(record.getPosition());
+        }
+        replayed.increment();
+        return true;
+    }
+
+    /**
+     * @return The number of messages sent directly.
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return The number of journaled messages.
+     */
+    public long getJournaledCount() {
+        return journaled.sum();
+    }
+
+    /**
+     * @return The number of replayed messages.
+     */
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    /**
+     * @return The journal of this publisher.
+     */
+    public SolaceOutboundJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Stops the replay and closes the producer. Pending messages stay in the journal for the next run, the
+     * journal itself is not closed.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        LockSupport.unpark(replayThread);
+        if (replayThread.isAlive()) {
+            try {
+                replayThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (producer != null) {
+            producer.close();
+        }
+    }
+
+    private static Object unwrap(Object key) {
+        return key instanceof Correlation ? ((Correlation) key).key : key;
+    }
+
+    /**
+     * The wrapped correlation key of a guaranteed message, set once the message is completed.
+     */
+    private static final class Correlation extends AtomicBoolean {
+        private final Object key;
+        private final long position;
+
+        private Correlation(Object key, long position) {
+            this.key = key;
+            this.position = position;
+        }
+    }
+
+    private final class CountingHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+
+        @Override
+        public void responseReceivedEx(Object key) {
+            if (!complete(key)) {
+                return;
+            }
+            if (key instanceof Correlation && ((Correlation) key).position != NOT_JOURNALED) {
+                journal.acknowledge(((Correlation) key).position);
+            }
+            eventHandler.responseReceivedEx(unwrap(key));
+        }
+
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            if (!complete(key)) {
+                return;
+            }
+            if (key instanceof Correlation && ((Correlation) key).position != NOT_JOURNALED) {
+                // replay this and the following messages again, after a pause
+                logger.warn("Journaled message was rejected, replaying it again", cause);
+                replayPausedUntilNanos = System.nanoTime() + IDLE_PARK_NANOS;
+                journal.rewind(((Correlation) key).position);
+            }
+            eventHandler.handleErrorEx(unwrap(key), cause, timestamp);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.solacesystems.jcsmp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of reusable messages, e.g. {@link BytesMessage} or {@link TextMessage}, shared by all threads. A
+ * message acquired on a publishing thread is typically released on the thread receiving its
+ * acknowledgement, so the pool is a single bounded lock-free queue rather than per thread stripes, which
+ * would fill up on the releasing threads and stay empty on the acquiring ones. Released messages are
+ * {@link XMLMessage#reset() reset}, a full pool discards them.
+ * <p>
+ * A message must only be released when the API no longer uses it:
+ * <ul>
+ *     <li>Direct messages as soon as {@link XMLMessageProducer#send(XMLMessage, Destination)} returned.</li>
+ *     <li>Persistent and non-persistent messages when the
+ *     {@link JCSMPStreamingPublishCorrelatingEventHandler} received the acknowledgement or error, as the
+ *     API keeps them for retransmission until then.</li>
+ * </ul>
+ *
+ * @param <T> The pooled message type.
+ */
+public class SolaceMessagePool<T extends Message> {
+
+    /**
+     * The default number of messages kept.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Class<T> messageType;
+    private final Object[] messages;
+    // sequence of each slot: equal to the offer position if free, to the position + 1 if filled
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong offerPosition = new AtomicLong();
+    private final AtomicLong pollPosition = new AtomicLong();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * Constructs a new SolaceMessagePool with the {@link #DEFAULT_CAPACITY}.
+     *
+     * @param messageType The message type to create, e.g. <code>BytesMessage.class</code>.
+     */
+    public SolaceMessagePool(Class<T> messageType) {
+        this(messageType, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new SolaceMessagePool.
+     *
+     * @param messageType The message type to create, e.g. <code>BytesMessage.class</code>.
+     * @param capacity    The number of messages kept, rounded up to a power of 2.
+     */
+    public SolaceMessagePool(Class<T> messageType, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.messageType = messageType;
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.messages = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns a blank message from the pool, or creates a new one.
+     *
+     * @return A blank message.
+     */
+    public T acquire() {
+        final Object pooled = poll();
+        if (pooled != null) {
+            reuses.increment();
+            return messageType.cast(pooled);
+        }
+        allocations.increment();
+        return JCSMPFactory.onlyInstance().createMessage(messageType);
+    }
+
+    /**
+     * Resets the given message and returns it to the pool. The message must not be used by the caller or the
+     * API afterwards.
+     *
+     * @param message The message to return to the pool.
+     */
+    public void release(T message) {
+        message.reset();
+        releases.increment();
+        if (!offer(message)) {
+            discards.increment();
+        }
+    }
+
+    /**
+     * @return The number of messages created because the pool was empty.
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * @return The number of messages served from the pool.
+     */
+    public long getReuseCount() {
+        return reuses.sum();
+    }
+
+    /**
+     * @return The number of released messages.
+     */
+    public long getReleaseCount() {
+        return releases.sum();
+    }
+
+    /**
+     * @return The number of released messages dropped because the pool was full.
+     */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    private Object poll() {
+        long position = pollPosition.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long filled = sequences.get(index) - (position + 1);
+            if (filled == 0) {
+                if (pollPosition.compareAndSet(position, position + 1)) {
+                    final Object message = messages[index];
+                    messages[index] = null;
+                    // free for the offer one round later
+                    sequences.set(index, position + messages.length);
+                    return message;
+                }
+                position = pollPosition.get();
+            } else if (filled < 0) {
+                return null;
+            } else {
+                position = pollPosition.get();
+            }
+        }
+    }
+
+    private boolean offer(Object message) {
+        long position = offerPosition.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long free = sequences.get(index) - position;
+            if (free == 0) {
+                if (offerPosition.compareAndSet(position, position + 1)) {
+                    messages[index] = message;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = offerPosition.get();
+            } else if (free < 0) {
+                return false;
+            } else {
+                position = offerPosition.get();
+            }
+        }
+    }
+}
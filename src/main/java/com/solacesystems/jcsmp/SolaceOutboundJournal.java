@@ -0,0 +1,490 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append-only journal of outbound messages, stored in memory-mapped segment files of a directory. Messages
+ * are read in append order with {@link #peek()} and {@link #advance()}. The read position is kept in a
+ * checkpoint file, so a restarted application continues after the last advanced message. Segments are
+ * deleted as soon as all their messages were read.
+ * <p>
+ * To replay several messages before the broker acknowledged them, {@link #next()} reads ahead of the read
+ * position, {@link #acknowledge(long)} marks a message as done, and the read position advances over the
+ * acknowledged messages in append order. {@link #rewind(long)} reads a message again, e.g. after the broker
+ * rejected it.
+ * <p>
+ * Only the destination, the delivery mode and the binary attachment of a message are journaled.
+ * <p>
+ * Record layout: <code>int length | byte destination type | byte delivery mode | short name length | name |
+ * attachment</code>. The length is written last, so a partially written record is never read. The highest
+ * bit of the delivery mode marks an acknowledged record.
+ */
+public class SolaceOutboundJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceOutboundJournal.class);
+
+    /**
+     * The default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 8;
+    private static final byte TOPIC = 0;
+    private static final byte QUEUE = 1;
+    private static final byte ACKNOWLEDGED = (byte) 0x80;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+
+    // the open segments from the read segment to the write segment
+    private final List<Segment> segments = new ArrayList<>();
+    private int readOffset;
+    private Segment nextSegment;
+    private int nextOffset;
+    private int writeOffset;
+    private long pending;
+    private long compactedSegments;
+
+    /**
+     * Opens the journal in the given directory with the {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @param directory The directory of the segment and checkpoint files, created if missing.
+     * @throws IOException if the journal can not be opened.
+     */
+    public SolaceOutboundJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the journal in the given directory and recovers the read and write position of a previous run.
+     *
+     * @param directory   The directory of the segment and checkpoint files, created if missing.
+     * @param segmentSize The size of new segment files, the upper bound of a journaled message.
+     * @throws IOException if the journal can not be opened.
+     */
+    public SolaceOutboundJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + HEADER_SIZE);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        final List<Long> indices = segmentIndices();
+        final long position = checkpoint.getLong(0);
+        long readIndex = position >>> 32;
+        readOffset = (int) position;
+        if (!indices.isEmpty() && readIndex < indices.get(0)) {
+            readIndex = indices.get(0);
+            readOffset = 0;
+        }
+        for (Long index : indices) {
+            if (index < readIndex) {
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+        final long writeIndex = indices.isEmpty() ? readIndex : Math.max(readIndex, indices.get(indices.size() - 1));
+
+        try {
+            int offset = readOffset;
+            for (long index = readIndex; index <= writeIndex; index++) {
+                final Segment segment = Segment.open(segmentPath(index), index, segmentSize);
+                segments.add(segment);
+                offset = scan(segment, index == readIndex ? readOffset : 0);
+            }
+            writeOffset = offset;
+        } catch (IOException | RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+        nextSegment = readSegment();
+        nextOffset = readOffset;
+        // messages acknowledged before a crash, but behind one that was not
+        advanceOverAcknowledged();
+        logger.info("Opened journal {} with {} pending messages", directory, pending);
+    }
+
+    private int scan(Segment segment, int offset) {
+        int length;
+        while ((length = segment.lengthAt(offset)) > 0) {
+            offset += length;
+            pending++;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends the message to the journal.
+     *
+     * @param message     The message to journal.
+     * @param destination The destination to send the message to on replay.
+     * @throws IOException if a new segment can not be created.
+     */
+    public synchronized void append(BytesXMLMessage message, Destination destination) throws IOException {
+        final ByteBuffer attachment = SolaceByteBufferPayloads.readAttachment(message);
+        final byte[] name = destination.getName().getBytes(UTF_8);
+        final int length = HEADER_SIZE + name.length + attachment.remaining();
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Message of " + length + " bytes exceeds the segment size " + segmentSize);
+        }
+        if (writeOffset + length > writeSegment().buffer.capacity()) {
+            roll();
+        }
+        final MappedByteBuffer buffer = writeSegment().buffer;
+        buffer.put(writeOffset + 4, destination instanceof Queue ? QUEUE : TOPIC);
+        buffer.put(writeOffset + 5, deliveryModeCode(message.getDeliveryMode()));
+        buffer.putShort(writeOffset + 6, (short) name.length);
+        buffer.put(writeOffset + HEADER_SIZE, name);
+        buffer.put(writeOffset + HEADER_SIZE + name.length, attachment, attachment.position(), attachment.remaining());
+        buffer.putInt(writeOffset, length);
+        writeOffset += length;
+        pending++;
+    }
+
+    private void roll() throws IOException {
+        final long index = writeSegment().index + 1;
+        segments.add(Segment.open(segmentPath(index), index, segmentSize));
+        writeOffset = 0;
+    }
+
+    /**
+     * Returns the oldest message not advanced yet. Its attachment is valid until {@link #advance()}.
+     *
+     * @return The oldest pending message, or <code>null</code> if the journal is empty.
+     */
+    public synchronized Record peek() {
+        skipToNextReadSegment();
+        final Segment segment = readSegment();
+        return segment.lengthAt(readOffset) == 0 ? null : record(segment, readOffset);
+    }
+
+    /**
+     * Moves the read position behind the message returned by the last {@link #peek()}, and behind the
+     * acknowledged messages following it, and stores it in the checkpoint file.
+     */
+    public synchronized void advance() {
+        skipToNextReadSegment();
+        final int length = readSegment().lengthAt(readOffset);
+        if (length == 0) {
+            throw new IllegalStateException("No message to advance over");
+        }
+        readOffset += length;
+        pending--;
+        advanceOverAcknowledged();
+    }
+
+    /**
+     * Returns the next message not returned by this method yet, starting at the read position and reading
+     * ahead of it. Acknowledged messages are skipped. Its attachment is valid until the read position
+     * advanced over it.
+     *
+     * @return The next message, or <code>null</code> if all messages were returned.
+     */
+    public synchronized Record next() {
+        while (true) {
+            final int length = nextSegment.lengthAt(nextOffset);
+            if (length == 0) {
+                if (nextSegment == writeSegment()) {
+                    return null;
+                }
+                nextSegment = segments.get(segments.indexOf(nextSegment) + 1);
+                nextOffset = 0;
+                continue;
+            }
+            final int offset = nextOffset;
+            nextOffset += length;
+            if ((nextSegment.buffer.get(offset + 5) & ACKNOWLEDGED) == 0) {
+                return record(nextSegment, offset);
+            }
+        }
+    }
+
+    /**
+     * Marks the message at the given position as done and advances the read position over the acknowledged
+     * messages at its front. Positions not pending anymore are ignored.
+     *
+     * @param position The {@link Record#getPosition()} of the message.
+     */
+    public synchronized void acknowledge(long position) {
+        if (position < readPosition()) {
+            return;
+        }
+        final Segment segment = segment(position);
+        if (segment != null && segment.lengthAt((int) position) > 0) {
+            final int offset = (int) position + 5;
+            segment.buffer.put(offset, (byte) (segment.buffer.get(offset) | ACKNOWLEDGED));
+            advanceOverAcknowledged();
+        }
+    }
+
+    /**
+     * Moves the position of {@link #next()} back to the given message, so it and all messages after it are
+     * returned again. Positions behind the position of <code>next()</code> or not pending anymore are
+     * ignored.
+     *
+     * @param position The {@link Record#getPosition()} of the message.
+     */
+    public synchronized void rewind(long position) {
+        final Segment segment = segment(position);
+        if (segment != null && position >= readPosition() && position < (nextSegment.index << 32 | nextOffset)) {
+            nextSegment = segment;
+            nextOffset = (int) position;
+        }
+    }
+
+    private void advanceOverAcknowledged() {
+        while (true) {
+            skipToNextReadSegment();
+            final Segment segment = readSegment();
+            final int length = segment.lengthAt(readOffset);
+            if (length == 0 || (segment.buffer.get(readOffset + 5) & ACKNOWLEDGED) == 0) {
+                break;
+            }
+            readOffset += length;
+            pending--;
+        }
+        if (nextSegment == readSegment() && nextOffset < readOffset) {
+            nextOffset = readOffset;
+        }
+        writeCheckpoint();
+    }
+
+    private void skipToNextReadSegment() {
+        while (segments.size() > 1 && readSegment().lengthAt(readOffset) == 0) {
+            final Segment consumed = segments.remove(0);
+            readOffset = 0;
+            if (nextSegment == consumed) {
+                nextSegment = readSegment();
+                nextOffset = 0;
+            }
+            writeCheckpoint();
+            try {
+                consumed.close();
+                Files.deleteIfExists(consumed.path);
+            } catch (IOException e) {
+                // deleted on the next start, as it is before the checkpoint
+                logger.warn("Failed to delete replayed journal segment {}", consumed.path, e);
+            }
+            compactedSegments++;
+            logger.debug("Deleted replayed journal segment {}", consumed.path);
+        }
+    }
+
+    private Record record(Segment segment, int offset) {
+        final MappedByteBuffer buffer = segment.buffer;
+        final int length = buffer.getInt(offset);
+        final int nameLength = buffer.getShort(offset + 6) & 0xFFFF;
+        final byte[] name = new byte[nameLength];
+        buffer.get(offset + HEADER_SIZE, name);
+        final String destinationName = new String(name, UTF_8);
+        final Destination destination = buffer.get(offset + 4) == QUEUE
+                ? JCSMPFactory.onlyInstance().createQueue(destinationName)
+                : JCSMPFactory.onlyInstance().createTopic(destinationName);
+        final int attachmentOffset = offset + HEADER_SIZE + nameLength;
+        final ByteBuffer attachment = buffer.slice(attachmentOffset, length - HEADER_SIZE - nameLength).asReadOnlyBuffer();
+        return new Record(destination, deliveryMode(buffer.get(offset + 5)), attachment, segment.index << 32 | offset);
+    }
+
+    private Segment segment(long position) {
+        final long index = (position >>> 32) - readSegment().index;
+        return index >= 0 && index < segments.size() ? segments.get((int) index) : null;
+    }
+
+    private long readPosition() {
+        return readSegment().index << 32 | readOffset;
+    }
+
+    private Segment readSegment() {
+        return segments.get(0);
+    }
+
+    private Segment writeSegment() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, readPosition());
+    }
+
+    /**
+     * @return <code>true</code> if all journaled messages were advanced over.
+     */
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * @return The number of journaled messages not advanced over yet.
+     */
+    public synchronized long getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * @return The number of segment files in use.
+     */
+    public synchronized long getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return The number of segment files deleted after all their messages were read.
+     */
+    public synchronized long getCompactedSegmentCount() {
+        return compactedSegments;
+    }
+
+    /**
+     * Flushes the segments and the checkpoint to disk and closes the journal.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        checkpoint.force();
+        closeSegments();
+        checkpointChannel.close();
+    }
+
+    private void closeSegments() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private List<Long> segmentIndices() throws IOException {
+        final List<Long> indices = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                final String fileName = file.getFileName().toString();
+                indices.add(Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(indices);
+        return indices;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static byte deliveryModeCode(DeliveryMode deliveryMode) {
+        if (deliveryMode == DeliveryMode.PERSISTENT) {
+            return 2;
+        }
+        return deliveryMode == DeliveryMode.NON_PERSISTENT ? (byte) 1 : 0;
+    }
+
+    private static DeliveryMode deliveryMode(byte code) {
+        switch (code & ~ACKNOWLEDGED) {
+            case 2:
+                return DeliveryMode.PERSISTENT;
+            case 1:
+                return DeliveryMode.NON_PERSISTENT;
+            default:
+                return DeliveryMode.DIRECT;
+        }
+    }
+
+    /**
+     * A journaled message.
+     */
+    public static final class Record {
+        private final Destination destination;
+        private final DeliveryMode deliveryMode;
+        private final ByteBuffer attachment;
+        private final long position;
+
+        private Record(Destination destination, DeliveryMode deliveryMode, ByteBuffer attachment, long position) {
+            this.destination = destination;
+            this.deliveryMode = deliveryMode;
+            this.attachment = attachment;
+            this.position = position;
+        }
+
+        public Destination getDestination() {
+            return destination;
+        }
+
+        public DeliveryMode getDeliveryMode() {
+            return deliveryMode;
+        }
+
+        /**
+         * @return A read-only view of the binary attachment in the segment.
+         */
+        public ByteBuffer getAttachment() {
+            return attachment;
+        }
+
+        /**
+         * @return The position of the message in the journal, to {@link #acknowledge(long)} or
+         * {@link #rewind(long)} it.
+         */
+        public long getPosition() {
+            return position;
+        }
+    }
+
+    private static final class Segment implements AutoCloseable {
+        private final long index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private static Segment open(Path path, long index, int segmentSize) throws IOException {
+            final FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                final long size = Math.max(segmentSize, channel.size());
+                return new Segment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private int lengthAt(int offset) {
+            return offset + Integer.BYTES <= buffer.capacity() ? buffer.getInt(offset) : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
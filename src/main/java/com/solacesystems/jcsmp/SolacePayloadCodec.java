@@ -0,0 +1,39 @@
+package com.solacesystems.jcsmp;
+
+import java.io.IOException;
+
+/**
+ * Encodes payload objects into the binary attachment of a message and decodes them from it. Implementations
+ * should write to and read from the attachment directly, without intermediate <code>String</code>s. Refer
+ * {@link SolacePayloadCodecs} to select the codec by payload type.
+ */
+public interface SolacePayloadCodec {
+
+    /**
+     * Checks if this codec can encode and decode the given payload type.
+     *
+     * @param type The payload type.
+     * @return <code>true</code> if the type is supported.
+     */
+    boolean supports(Class<?> type);
+
+    /**
+     * Writes the given payload as the binary attachment of the message.
+     *
+     * @param payload The payload to encode.
+     * @param message The outbound message.
+     * @throws IOException if the payload can not be encoded.
+     */
+    void encode(Object payload, BytesXMLMessage message) throws IOException;
+
+    /**
+     * Reads a payload of the given type from the binary attachment of the message.
+     *
+     * @param message The received message.
+     * @param type    The payload type.
+     * @param <T>     The payload type.
+     * @return The decoded payload.
+     * @throws IOException if the attachment can not be decoded.
+     */
+    <T> T decode(BytesXMLMessage message, Class<T> type) throws IOException;
+}
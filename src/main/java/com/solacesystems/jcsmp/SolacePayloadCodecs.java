@@ -0,0 +1,63 @@
+package com.solacesystems.jcsmp;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Selects the first {@link SolacePayloadCodec} of an ordered list supporting a payload type. The selected
+ * codec is remembered per type.
+ */
+public class SolacePayloadCodecs {
+
+    private final List<SolacePayloadCodec> codecs;
+    private final Map<Class<?>, SolacePayloadCodec> codecsByType = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new SolacePayloadCodecs.
+     *
+     * @param codecs The codecs, in the order they are asked for support of a payload type.
+     */
+    public SolacePayloadCodecs(List<SolacePayloadCodec> codecs) {
+        this.codecs = List.copyOf(codecs);
+    }
+
+    /**
+     * Writes the given payload as the binary attachment of the message.
+     *
+     * @param payload The payload to encode.
+     * @param message The outbound message.
+     * @throws IOException if the payload can not be encoded.
+     */
+    public void encode(Object payload, BytesXMLMessage message) throws IOException {
+        getCodec(payload.getClass()).encode(payload, message);
+    }
+
+    /**
+     * Reads a payload of the given type from the binary attachment of the message.
+     *
+     * @param message The received message.
+     * @param type    The payload type.
+     * @param <T>     The payload type.
+     * @return The decoded payload.
+     * @throws IOException if the attachment can not be decoded.
+     */
+    public <T> T decode(BytesXMLMessage message, Class<T> type) throws IOException {
+        return getCodec(type).decode(message, type);
+    }
+
+    /**
+     * Returns the first codec supporting the given type.
+     *
+     * @param type The payload type.
+     * @return The codec.
+     * @throws IllegalArgumentException if no codec supports the type.
+     */
+    public SolacePayloadCodec getCodec(Class<?> type) {
+        return codecsByType.computeIfAbsent(type, t -> codecs.stream()
+                .filter(codec -> codec.supports(t))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No SolacePayloadCodec supports " + t.getName())));
+    }
+}
@@ -0,0 +1,185 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous request/reply on a single session. All replies are received on the session's P2P inbox, so a
+ * request neither sets up a reply subscription nor a temporary queue. Outstanding requests are kept in a
+ * correlation id table and time out through a hashed wheel timer, which does not allocate a scheduled task
+ * per request.
+ * <p>
+ * The client takes over the message consumer of the session and closes the session when it is closed.
+ * Futures are completed on the API's context thread respectively the timer thread, so dependent stages that
+ * block must use the <code>*Async</code> variants.
+ */
+public class SolaceRequestReplyClient implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceRequestReplyClient.class);
+
+    private static final long TICK_NANOS = Duration.ofMillis(10).toNanos();
+    private static final int WHEEL_SIZE = 512;
+
+    private final JCSMPSession session;
+    private final XMLMessageProducer producer;
+    private final XMLMessageConsumer consumer;
+    private final Destination replyTo;
+    private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    private final SolaceTimerWheel timerWheel = new SolaceTimerWheel("solace-request-timeouts", TICK_NANOS, WHEEL_SIZE);
+    private final String correlationIdPrefix = UUID.randomUUID().toString().substring(0, 8) + '-';
+    private final AtomicLong correlationIds = new AtomicLong();
+
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder unmatchedReplies = new LongAdder();
+
+    /**
+     * Constructs a new SolaceRequestReplyClient and starts receiving replies.
+     *
+     * @param session The connected session to send requests and receive replies with.
+     * @throws JCSMPException if the producer or consumer can not be created.
+     */
+    public SolaceRequestReplyClient(JCSMPSession session) throws JCSMPException {
+        this.session = session;
+        this.replyTo = (Destination) session.getProperty(JCSMPProperties.P2PINBOX_IN_USE);
+        try {
+            this.producer = session.getMessageProducer(new SendErrorHandler());
+            this.consumer = session.getMessageConsumer(new ReplyListener());
+            this.consumer.start();
+        } catch (JCSMPException | RuntimeException e) {
+            timerWheel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends the request and returns a future completed with the reply. The reply destination and the
+     * correlation id of the request are overwritten.
+     *
+     * @param request     The request message.
+     * @param destination The destination of the responder.
+     * @param timeout     The time to wait for the reply.
+     * @return A future completed with the reply, or exceptionally with a {@link TimeoutException} or the
+     * send failure.
+     */
+    public CompletableFuture<BytesXMLMessage> request(XMLMessage request, Destination destination, Duration timeout) {
+        final String correlationId = correlationIdPrefix + Long.toString(correlationIds.incrementAndGet(), 36);
+        final PendingRequest pendingRequest = new PendingRequest(correlationId);
+        pendingRequests.put(correlationId, pendingRequest);
+        timerWheel.schedule(pendingRequest, timeout.toNanos());
+        request.setReplyTo(replyTo);
+        request.setCorrelationId(correlationId);
+        try {
+            producer.send(request, destination);
+        } catch (JCSMPException | RuntimeException e) {
+            pendingRequests.remove(correlationId);
+            pendingRequest.future.completeExceptionally(e);
+        }
+        return pendingRequest.future;
+    }
+
+    /**
+     * @return The destination replies are received on.
+     */
+    public Destination getReplyTo() {
+        return replyTo;
+    }
+
+    /**
+     * @return The number of requests waiting for a reply.
+     */
+    public int getPendingCount() {
+        return pendingRequests.size();
+    }
+
+    /**
+     * @return The number of timed out requests.
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return The number of replies received after their request timed out or with an unknown correlation id.
+     */
+    public long getUnmatchedReplyCount() {
+        return unmatchedReplies.sum();
+    }
+
+    /**
+     * Fails the outstanding requests and closes the consumer, the producer and the session.
+     */
+    @Override
+    public void close() {
+        timerWheel.close();
+        consumer.close();
+        producer.close();
+        session.closeSession();
+        final IllegalStateException closed = new IllegalStateException("Request/reply client closed");
+        pendingRequests.values().forEach(pendingRequest -> pendingRequest.future.completeExceptionally(closed));
+        pendingRequests.clear();
+    }
+
+    private final class PendingRequest extends SolaceTimerWheel.Timeout {
+        private final String correlationId;
+        private final CompletableFuture<BytesXMLMessage> future = new CompletableFuture<>();
+
+        private PendingRequest(String correlationId) {
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        protected boolean isDone() {
+            return future.isDone();
+        }
+
+        @Override
+        protected void expire() {
+            if (pendingRequests.remove(correlationId, this)) {
+                timeouts.increment();
+                future.completeExceptionally(new TimeoutException("No reply for request " + correlationId));
+            }
+        }
+    }
+
+    private final class ReplyListener implements XMLMessageListener {
+
+        @Override
+        public void onReceive(BytesXMLMessage reply) {
+            final String correlationId = reply.getCorrelationId();
+            final PendingRequest pendingRequest = correlationId == null ? null : pendingRequests.remove(correlationId);
+            if (pendingRequest == null) {
+                unmatchedReplies.increment();
+                logger.debug("Dropping reply with unknown correlation id {}", correlationId);
+                return;
+            }
+            pendingRequest.future.complete(reply);
+        }
+
+        @Override
+        public void onException(JCSMPException exception) {
+            logger.warn("Reply consumer failed, outstanding requests will time out", exception);
+        }
+    }
+
+    private static final class SendErrorHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+
+        @Override
+        public void responseReceivedEx(Object key) {
+            // the reply completes the request
+        }
+
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            logger.warn("Failed to publish request {}", key, cause);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publish pipeline handing messages over to a dedicated sender thread through a preallocated ring buffer.
+ * Publishing threads claim a slot with a compare-and-set, or with a plain store if there is only a single
+ * writer, and never take a lock or allocate. The sender thread drains the published slots in batches into
+ * the {@link XMLMessageProducer}, with one
+ * {@link XMLMessageProducer#sendMultiple(JCSMPSendMultipleEntry[], int, int, int)} per up to
+ * {@link SolaceAdaptivePublisher#MAX_BATCH_SIZE} messages.
+ * <p>
+ * The ring only holds references, so a message must not be modified or reused after it was published to
+ * the ring. Acknowledgements are reported by the producer's event handler as usual. Messages the producer
+ * failed to send are counted and reported to the given event handler, which should be the one of the
+ * producer. The producer is not closed by {@link #close()}.
+ */
+public class SolaceRingBufferPublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceRingBufferPublisher.class);
+
+    /**
+     * The default maximum number of messages sent per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * How publishing threads wait for a free slot and the sender thread waits for published messages.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins on the CPU, lowest latency at the cost of a fully used core.
+         */
+        BUSY_SPIN {
+            @Override
+            void idle(int counter) {
+                Thread.onSpinWait();
+            }
+        },
+        /**
+         * Spins shortly, then yields the CPU to other threads.
+         */
+        YIELD {
+            @Override
+            void idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        },
+        /**
+         * Spins and yields shortly, then parks the thread. Lowest CPU usage with the highest latency.
+         */
+        PARK {
+            @Override
+            void idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (counter < 2 * SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        };
+
+        private static final int SPIN_TRIES = 100;
+        private static final long PARK_NANOS = 10_000L;
+
+        abstract void idle(int counter);
+    }
+
+    private final XMLMessageProducer producer;
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler;
+    private final int mask;
+    private final int batchSize;
+    private final boolean multiWriter;
+    private final WaitStrategy waitStrategy;
+
+    private final XMLMessage[] messages;
+    private final Destination[] destinations;
+    private final JCSMPSendMultipleEntry[] entries;
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+    private final AtomicLong sentSequence = new AtomicLong(-1);
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Thread senderThread;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new multi-writer SolaceRingBufferPublisher with the {@link #DEFAULT_BATCH_SIZE} and
+     * starts its sender thread.
+     *
+     * @param producer     The producer to send with.
+     * @param eventHandler The handler receiving the errors of messages the producer failed to send.
+     * @param capacity     The number of slots, a power of 2.
+     * @param waitStrategy The strategy to wait for free slots respectively published messages.
+     */
+    public SolaceRingBufferPublisher(XMLMessageProducer producer,
+                                     JCSMPStreamingPublishCorrelatingEventHandler eventHandler,
+                                     int capacity,
+                                     WaitStrategy waitStrategy) {
+        this(producer, eventHandler, capacity, DEFAULT_BATCH_SIZE, waitStrategy, true);
+    }
+
+    /**
+     * Constructs a new SolaceRingBufferPublisher and starts its sender thread.
+     *
+     * @param producer     The producer to send with.
+     * @param eventHandler The handler receiving the errors of messages the producer failed to send.
+     * @param capacity     The number of slots, a power of 2.
+     * @param batchSize    The maximum number of messages sent before the slots are released to the writers.
+     * @param waitStrategy The strategy to wait for free slots respectively published messages.
+     * @param multiWriter  <code>false</code> if only a single thread ever publishes, which saves the
+     *                     compare-and-set on claiming a slot.
+     */
+    public SolaceRingBufferPublisher(XMLMessageProducer producer,
+                                     JCSMPStreamingPublishCorrelatingEventHandler eventHandler,
+                                     int capacity,
+                                     int batchSize,
+                                     WaitStrategy waitStrategy,
+                                     boolean multiWriter) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+        this.producer = producer;
+        this.eventHandler = eventHandler;
+        this.mask = capacity - 1;
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.multiWriter = multiWriter;
+        this.messages = new XMLMessage[capacity];
+        this.destinations = new Destination[capacity];
+        this.entries = new JCSMPSendMultipleEntry[Math.min(batchSize, SolaceAdaptivePublisher.MAX_BATCH_SIZE)];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = JCSMPFactory.onlyInstance().createSendMultipleEntry(null, null);
+        }
+        this.publishedSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            publishedSequences.set(i, -1);
+        }
+        this.senderThread = new Thread(this::drain, "solace-ring-buffer-publisher");
+        this.senderThread.setDaemon(true);
+        this.senderThread.start();
+    }
+
+    /**
+     * Hands the message over to the sender thread, waiting for a free slot if the ring is full.
+     *
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @throws IllegalStateException if the publisher is closed.
+     */
+    public void publish(XMLMessage message, Destination destination) {
+        final long sequence = claim(true);
+        write(sequence, message, destination);
+    }
+
+    /**
+     * Hands the message over to the sender thread if a slot is free.
+     *
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @return <code>false</code> if the ring is full.
+     * @throws IllegalStateException if the publisher is closed.
+     */
+    public boolean tryPublish(XMLMessage message, Destination destination) {
+        final long sequence = claim(false);
+        if (sequence < 0) {
+            return false;
+        }
+        write(sequence, message, destination);
+        return true;
+    }
+
+    private long claim(boolean wait) {
+        int counter = 0;
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Publisher is closed");
+            }
+            final long current = claimSequence.get();
+            final long next = current + 1;
+            if (next - messages.length > sentSequence.get()) {
+                if (!wait) {
+                    return -1;
+                }
+                waitStrategy.idle(counter);
+                counter = saturatedIncrement(counter);
+            } else if (!multiWriter) {
+                claimSequence.lazySet(next);
+                return next;
+            } else if (claimSequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private void write(long sequence, XMLMessage message, Destination destination) {
+        final int index = (int) sequence & mask;
+        messages[index] = message;
+        destinations[index] = destination;
+        publishedSequences.lazySet(index, sequence);
+    }
+
+    private void drain() {
+        long next = 0;
+        int counter = 0;
+        while (!closed || next <= claimSequence.get()) {
+            long available = next - 1;
+            while (available + 1 - next < batchSize && publishedSequences.get((int) (available + 1) & mask) == available + 1) {
+                available++;
+            }
+            if (available < next) {
+                waitStrategy.idle(counter);
+                counter = saturatedIncrement(counter);
+                continue;
+            }
+            counter = 0;
+            for (long sequence = next; sequence <= available; sequence += entries.length) {
+                send(sequence, (int) Math.min(entries.length, available + 1 - sequence));
+            }
+            sentSequence.lazySet(available);
+            next = available + 1;
+        }
+        logger.debug("Sender thread stopped after {} sent messages", sent.sum());
+    }
+
+    private void send(long first, int length) {
+        for (int i = 0; i < length; i++) {
+            final int index = (int) (first + i) & mask;
+            entries[i].setMessage(messages[index]);
+            entries[i].setDestination(destinations[index]);
+            messages[index] = null;
+            destinations[index] = null;
+        }
+        int sentCount = 0;
+        JCSMPException cause = null;
+        try {
+            sentCount = producer.sendMultiple(entries, 0, length, 0);
+            if (sentCount < length) {
+                cause = new JCSMPException("Sent " + sentCount + " of " + length + " messages");
+            }
+        } catch (JCSMPException e) {
+            cause = e;
+        } catch (RuntimeException e) {
+            cause = new JCSMPException(e.getMessage(), e);
+        }
+        try {
+            sent.add(sentCount);
+            if (cause != null) {
+                logger.error("Failed to send {} of {} messages", length - sentCount, length, cause);
+                failed(sentCount, length, cause);
+            }
+        } finally {
+            for (int i = 0; i < length; i++) {
+                entries[i].setMessage(null);
+                entries[i].setDestination(null);
+            }
+        }
+    }
+
+    /**
+     * Reports the unsent messages to the event handler. A failed <code>sendMultiple</code> does not tell
+     * how many messages it sent, so all of them are reported.
+     */
+    private void failed(int offset, int length, JCSMPException cause) {
+        final long timestamp = System.currentTimeMillis();
+        failures.add(length - offset);
+        for (int i = offset; i < length; i++) {
+            try {
+                eventHandler.handleErrorEx(entries[i].getMessage().getCorrelationKey(), cause, timestamp);
+            } catch (RuntimeException e) {
+                // keep the sender thread alive for the following messages
+                logger.error("Event handler failed", e);
+            }
+        }
+    }
+
+    private static int saturatedIncrement(int counter) {
+        return counter == Integer.MAX_VALUE ? counter : counter + 1;
+    }
+
+    /**
+     * @return The number of messages sent by the sender thread.
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * @return The number of messages the producer failed to send.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Rejects further messages and waits until the sender thread sent all messages already published. Must
+     * not be called concurrently with publishing threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            senderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
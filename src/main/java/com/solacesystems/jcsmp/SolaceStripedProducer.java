@@ -0,0 +1,310 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads sends across the producers of several sessions, so threads publishing in parallel do not serialize
+ * on a single {@link XMLMessageProducer}. Sends without a key are assigned to a stripe by the sending thread,
+ * sends with a key by the hash of the key. Messages of the same thread, respectively of the same key, always
+ * use the same stripe and keep their order.
+ * <p>
+ * The sessions can be replaced one stripe at a time by {@link #rollover(SessionSupplier)}, e.g. after the
+ * client certificate changed, so the other stripes keep publishing meanwhile. A replaced stripe is closed
+ * once its guaranteed messages are acknowledged. To count them, the correlation key of each guaranteed
+ * message is wrapped before sending; the given event handler receives the original correlation key.
+ * <p>
+ * A rollover does not keep the order of a stripe: messages sent by the new session may reach the broker
+ * before unacknowledged messages of the replaced one. A send racing with the rollover of its stripe may fail
+ * on the closed producer; it is not retried, as the failed send may have reached the broker.
+ */
+public class SolaceStripedProducer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceStripedProducer.class);
+
+    /**
+     * Creates the connected session replacing the session of a stripe.
+     */
+    @FunctionalInterface
+    public interface SessionSupplier {
+        JCSMPSession get(int stripe) throws JCSMPException;
+    }
+
+    /**
+     * The default time {@link #rollover(SessionSupplier)} waits for the acknowledgements of a replaced stripe.
+     */
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler;
+    private final Runnable onClose;
+    private final LongAdder[] sendCounts;
+    private volatile Stripe[] stripes;
+
+    /**
+     * Constructs a new SolaceStripedProducer on the given connected sessions.
+     *
+     * @param sessions     The sessions to publish with, one stripe per session.
+     * @param eventHandler The handler for publish acknowledgements and errors of all stripes.
+     * @throws JCSMPException if a producer can not be created.
+     */
+    public SolaceStripedProducer(List<JCSMPSession> sessions,
+                                 JCSMPStreamingPublishCorrelatingEventHandler eventHandler) throws JCSMPException {
+        this(sessions, eventHandler, null);
+    }
+
+    SolaceStripedProducer(List<JCSMPSession> sessions,
+                          JCSMPStreamingPublishCorrelatingEventHandler eventHandler,
+                          Runnable onClose) throws JCSMPException {
+        if (sessions.isEmpty()) {
+            throw new IllegalArgumentException("At least one session is required");
+        }
+        this.eventHandler = eventHandler;
+        this.onClose = onClose;
+        final Stripe[] stripes = new Stripe[sessions.size()];
+        this.sendCounts = new LongAdder[sessions.size()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(sessions.get(i));
+            sendCounts[i] = new LongAdder();
+        }
+        this.stripes = stripes;
+    }
+
+    /**
+     * Sends the message with the producer of the current thread's stripe.
+     *
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @throws JCSMPException if the send fails.
+     */
+    public void send(XMLMessage message, Destination destination) throws JCSMPException {
+        final long id = Thread.currentThread().getId();
+        send(stripeOf((int) (id ^ (id >>> 32))), message, destination);
+    }
+
+    /**
+     * Sends the message with the producer of the key's stripe. Messages with equal keys are sent in order.
+     *
+     * @param key         The ordering key, e.g. an entity id.
+     * @param message     The message to send.
+     * @param destination The destination to send to.
+     * @throws JCSMPException if the send fails.
+     */
+    public void send(Object key, XMLMessage message, Destination destination) throws JCSMPException {
+        send(stripeOf(key.hashCode()), message, destination);
+    }
+
+    private void send(int index, XMLMessage message, Destination destination) throws JCSMPException {
+        stripes[index].send(message, destination);
+        sendCounts[index].increment();
+    }
+
+    private int stripeOf(int hash) {
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    /**
+     * Replaces the sessions one stripe at a time, waiting up to the {@link #DEFAULT_DRAIN_TIMEOUT} for the
+     * acknowledgements of each replaced stripe.
+     *
+     * @param sessionSupplier Creates the connected replacement session of a stripe.
+     * @throws JCSMPException if a session or producer can not be created.
+     * @see #rollover(SessionSupplier, Duration)
+     */
+    public void rollover(SessionSupplier sessionSupplier) throws JCSMPException {
+        rollover(sessionSupplier, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Replaces the sessions one stripe at a time. A stripe switches to the producer of its new session, then
+     * the guaranteed messages sent by the old producer are given the drain timeout to be acknowledged before
+     * the old producer and session are closed. The other stripes are not affected. If a new session can not
+     * be created, the remaining stripes keep their sessions.
+     *
+     * @param sessionSupplier Creates the connected replacement session of a stripe.
+     * @param drainTimeout    The maximum time to wait for the acknowledgements of a replaced stripe.
+     * @throws JCSMPException if a session or producer can not be created.
+     */
+    public synchronized void rollover(SessionSupplier sessionSupplier, Duration drainTimeout) throws JCSMPException {
+        for (int index = 0; index < stripes.length; index++) {
+            final JCSMPSession session = sessionSupplier.get(index);
+            final Stripe stripe;
+            try {
+                stripe = new Stripe(session);
+            } catch (JCSMPException | RuntimeException e) {
+                session.closeSession();
+                throw e;
+            }
+            final Stripe[] rolled = stripes.clone();
+            final Stripe oldStripe = rolled[index];
+            rolled[index] = stripe;
+            stripes = rolled;
+            try {
+                if (!oldStripe.awaitDrained(drainTimeout.toNanos())) {
+                    logger.warn("Closing producer stripe {} with {} unacknowledged messages", index, oldStripe.inFlight.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted, closing producer stripe {} with {} unacknowledged messages", index, oldStripe.inFlight.get());
+            }
+            oldStripe.close();
+            logger.debug("Rolled over producer stripe {}", index);
+        }
+    }
+
+    /**
+     * @return The number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the number of messages sent by the given stripe, e.g. to check the distribution of keys.
+     *
+     * @param stripe The stripe index.
+     * @return The number of sent messages.
+     */
+    public long getSendCount(int stripe) {
+        return sendCounts[stripe].sum();
+    }
+
+    /**
+     * Returns the number of guaranteed messages sent by the current producer of the given stripe and not
+     * acknowledged yet.
+     *
+     * @param stripe The stripe index.
+     * @return The number of unacknowledged messages.
+     */
+    public int getInFlightCount(int stripe) {
+        return stripes[stripe].inFlight.get();
+    }
+
+    /**
+     * Closes the producers and sessions of all stripes.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.close();
+            }
+        } finally {
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+        logger.debug("Closed {} producer stripes", stripes.length);
+    }
+
+    /**
+     * The producer of a session, counting its guaranteed messages until they are acknowledged.
+     */
+    private final class Stripe {
+        private final JCSMPSession session;
+        private final XMLMessageProducer producer;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Stripe(JCSMPSession session) throws JCSMPException {
+            this.session = session;
+            this.producer = session.getMessageProducer(new CountingHandler());
+        }
+
+        private void send(XMLMessage message, Destination destination) throws JCSMPException {
+            if (message.getDeliveryMode() == DeliveryMode.DIRECT) {
+                producer.send(message, destination);
+                return;
+            }
+            final Correlation correlation = new Correlation(message.getCorrelationKey());
+            message.setCorrelationKey(correlation);
+            // counted before sending, the acknowledgement may arrive before send returns
+            inFlight.incrementAndGet();
+            try {
+                producer.send(message, destination);
+            } catch (JCSMPException | RuntimeException e) {
+                message.setCorrelationKey(correlation.key);
+                complete(correlation);
+                throw e;
+            }
+        }
+
+        /**
+         * Completes a guaranteed message of this stripe once, by its acknowledgement or its failure. Other
+         * callbacks, like session errors, did not count a message.
+         *
+         * @return <code>false</code> if the message was completed before.
+         */
+        private boolean complete(Object key) {
+            if (!(key instanceof Correlation)) {
+                return true;
+            }
+            if (!((Correlation) key).compareAndSet(false, true)) {
+                return false;
+            }
+            if (inFlight.decrementAndGet() <= 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+            return true;
+        }
+
+        private synchronized boolean awaitDrained(long timeoutNanos) throws InterruptedException {
+            final long deadline = System.nanoTime() + timeoutNanos;
+            while (inFlight.get() > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        private void close() {
+            try {
+                producer.close();
+            } finally {
+                session.closeSession();
+            }
+        }
+
+        private final class CountingHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+
+            @Override
+            public void responseReceivedEx(Object key) {
+                if (complete(key)) {
+                    eventHandler.responseReceivedEx(unwrap(key));
+                }
+            }
+
+            @Override
+            public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+                if (complete(key)) {
+                    eventHandler.handleErrorEx(unwrap(key), cause, timestamp);
+                }
+            }
+        }
+    }
+
+    private static Object unwrap(Object key) {
+        return key instanceof Correlation ? ((Correlation) key).key : key;
+    }
+
+    /**
+     * The wrapped correlation key of a guaranteed message, set once the message is completed.
+     */
+    private static final class Correlation extends AtomicBoolean {
+        private final Object key;
+
+        private Correlation(Object key) {
+            this.key = key;
+        }
+    }
+}
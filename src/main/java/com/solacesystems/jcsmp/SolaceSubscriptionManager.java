@@ -0,0 +1,283 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.solacesystems.jcsmp.JCSMPProperties.REAPPLY_SUBSCRIPTIONS;
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTED;
+import static com.solacesystems.jcsmp.SessionEvent.SUBSCRIPTION_ERROR;
+
+/**
+ * Manages the topic subscriptions of a {@link JCSMPSession} in bulk. Subscriptions that are already
+ * covered by a broader wildcard subscription of the same manager are not applied to the broker. Changes
+ * are sent without waiting for a confirm on each subscription, only the last operation of a batch waits
+ * for the broker confirm. After a reconnect the minimal subscription set is replayed, unless the session
+ * already does so because of <code>REAPPLY_SUBSCRIPTIONS</code>.
+ */
+public class SolaceSubscriptionManager implements SessionEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceSubscriptionManager.class);
+
+    private static final String LEVEL_SEPARATOR = "/";
+    private static final String SINGLE_LEVEL_WILDCARD = "*";
+    private static final String MULTI_LEVEL_WILDCARD = ">";
+
+    private final Set<String> subscriptions = new HashSet<>();
+    // Concurrent, as it is replayed from the session event thread without taking the manager lock.
+    private final Set<String> appliedSubscriptions = ConcurrentHashMap.newKeySet();
+    protected JCSMPSession jcsmpSession;
+
+    /**
+     * Constructs a new SolaceSubscriptionManager. The session has to be injected by
+     * {@link #setJcsmpSession(JCSMPSession)} before subscriptions can be applied.
+     */
+    public SolaceSubscriptionManager() {
+    }
+
+    /**
+     * Constructs a new SolaceSubscriptionManager for the given session. Session events have to be forwarded
+     * to {@link #handleEvent(SessionEventArgs)} to replay the subscriptions after a reconnect.
+     *
+     * @param jcsmpSession The JCSMP session to manage the subscriptions of.
+     */
+    public SolaceSubscriptionManager(JCSMPSession jcsmpSession) {
+        this.jcsmpSession = jcsmpSession;
+    }
+
+    /**
+     * Sets the JCSMP session whose subscriptions are managed.
+     *
+     * @param jcsmpSession The JCSMP session to manage the subscriptions of.
+     */
+    public void setJcsmpSession(JCSMPSession jcsmpSession) {
+        this.jcsmpSession = jcsmpSession;
+    }
+
+    /**
+     * Returns the session whose subscriptions are managed.
+     *
+     * @return The managed JCSMP session.
+     */
+    public JCSMPSession getJcsmpSession() {
+        return jcsmpSession;
+    }
+
+    /**
+     * Adds a single topic subscription. Prefer {@link #addSubscriptions(Collection)} for many subscriptions,
+     * as the minimal subscription set is recalculated on each call.
+     *
+     * @param subscription The topic subscription to add.
+     * @throws JCSMPException if the broker rejects a subscription.
+     */
+    public void addSubscription(String subscription) throws JCSMPException {
+        addSubscriptions(Collections.singleton(subscription));
+    }
+
+    /**
+     * Adds the given topic subscriptions and applies the changed minimal subscription set in one batch.
+     *
+     * @param subscriptions The topic subscriptions to add.
+     * @throws JCSMPException if the broker rejects a subscription.
+     */
+    public synchronized void addSubscriptions(Collection<String> subscriptions) throws JCSMPException {
+        if (this.subscriptions.addAll(subscriptions)) {
+            applySubscriptions(minimalSubscriptions(this.subscriptions));
+        }
+    }
+
+    /**
+     * Removes a single topic subscription. Prefer {@link #removeSubscriptions(Collection)} for many
+     * subscriptions, as the minimal subscription set is recalculated on each call.
+     *
+     * @param subscription The topic subscription to remove.
+     * @throws JCSMPException if the broker rejects a subscription.
+     */
+    public void removeSubscription(String subscription) throws JCSMPException {
+        removeSubscriptions(Collections.singleton(subscription));
+    }
+
+    /**
+     * Removes the given topic subscriptions and applies the changed minimal subscription set in one batch.
+     * Subscriptions that were covered by a removed wildcard are applied before the wildcard is removed.
+     *
+     * @param subscriptions The topic subscriptions to remove.
+     * @throws JCSMPException if the broker rejects a subscription.
+     */
+    public synchronized void removeSubscriptions(Collection<String> subscriptions) throws JCSMPException {
+        if (this.subscriptions.removeAll(subscriptions)) {
+            applySubscriptions(minimalSubscriptions(this.subscriptions));
+        }
+    }
+
+    /**
+     * Returns all subscriptions added to this manager, including the ones covered by a wildcard.
+     *
+     * @return An immutable copy of the requested subscriptions.
+     */
+    public synchronized Set<String> getSubscriptions() {
+        return Set.copyOf(subscriptions);
+    }
+
+    /**
+     * Returns the minimal subscription set that is applied to the broker.
+     *
+     * @return An immutable copy of the applied subscriptions.
+     */
+    public Set<String> getAppliedSubscriptions() {
+        return Set.copyOf(appliedSubscriptions);
+    }
+
+    /**
+     * Sends the minimal subscription set to the broker again, without waiting for confirms. Errors are
+     * reported by the session event handler as {@link SessionEvent#SUBSCRIPTION_ERROR}.
+     */
+    public void reapplySubscriptions() {
+        for (String subscription : appliedSubscriptions) {
+            try {
+                jcsmpSession.addSubscription(JCSMPFactory.onlyInstance().createTopic(subscription), false);
+            } catch (JCSMPException e) {
+                logger.warn("Unable to reapply subscription {}", subscription, e);
+            }
+        }
+    }
+
+    @Override
+    public void handleEvent(SessionEventArgs sessionEventArgs) {
+        final SessionEvent event = sessionEventArgs.getEvent();
+        if (event == RECONNECTED && !isReappliedBySession()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Replaying {} subscriptions after reconnect", appliedSubscriptions.size());
+            }
+            reapplySubscriptions();
+        } else if (event == SUBSCRIPTION_ERROR) {
+            logger.warn("Subscription error: {}", sessionEventArgs.getInfo(), sessionEventArgs.getException());
+        }
+    }
+
+    private boolean isReappliedBySession() {
+        return Boolean.TRUE.equals(jcsmpSession.getProperty(REAPPLY_SUBSCRIPTIONS));
+    }
+
+    private void applySubscriptions(Set<String> target) throws JCSMPException {
+        final List<String> toAdd = new ArrayList<>();
+        for (String subscription : target) {
+            if (!appliedSubscriptions.contains(subscription)) {
+                toAdd.add(subscription);
+            }
+        }
+        final List<String> toRemove = new ArrayList<>();
+        for (String subscription : appliedSubscriptions) {
+            if (!target.contains(subscription)) {
+                toRemove.add(subscription);
+            }
+        }
+
+        // Add before remove, so a narrowed wildcard never leaves a gap. Only the last operation waits for
+        // the confirm, the broker processes subscription requests of a session in order.
+        int pending = toAdd.size() + toRemove.size();
+        for (String subscription : toAdd) {
+            jcsmpSession.addSubscription(JCSMPFactory.onlyInstance().createTopic(subscription), --pending == 0);
+            appliedSubscriptions.add(subscription);
+        }
+        for (String subscription : toRemove) {
+            jcsmpSession.removeSubscription(JCSMPFactory.onlyInstance().createTopic(subscription), --pending == 0);
+            appliedSubscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * Calculates the subscriptions that are not covered by another, broader subscription of the given set.
+     * Shared and no-export subscriptions (starting with <code>#</code>) are never collapsed.
+     *
+     * @param subscriptions The requested subscriptions.
+     * @return The minimal subscription set receiving the same messages.
+     */
+    static Set<String> minimalSubscriptions(Collection<String> subscriptions) {
+        final Node root = new Node(null);
+        for (String subscription : subscriptions) {
+            if (!subscription.startsWith("#")) {
+                root.insert(subscription.split(LEVEL_SEPARATOR, -1), subscription);
+            }
+        }
+
+        final Set<String> minimal = new HashSet<>();
+        for (String subscription : subscriptions) {
+            if (subscription.startsWith("#") || !root.isCovered(subscription.split(LEVEL_SEPARATOR, -1), 0, subscription)) {
+                minimal.add(subscription);
+            }
+        }
+        return minimal;
+    }
+
+    private static boolean isMultiLevelWildcard(String[] levels, int index) {
+        return index == levels.length - 1 && MULTI_LEVEL_WILDCARD.equals(levels[index]);
+    }
+
+    /**
+     * A subscription trie with one node per topic level.
+     */
+    private static final class Node {
+        private final String prefix;
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Node> prefixWildcards = new ArrayList<>();
+        private String subscription;
+
+        private Node(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private void insert(String[] levels, String subscription) {
+            Node node = this;
+            for (String level : levels) {
+                Node child = node.children.get(level);
+                if (child == null) {
+                    final boolean prefixWildcard = level.endsWith(SINGLE_LEVEL_WILDCARD);
+                    child = new Node(prefixWildcard ? level.substring(0, level.length() - 1) : null);
+                    node.children.put(level, child);
+                    if (prefixWildcard) {
+                        node.prefixWildcards.add(child);
+                    }
+                }
+                node = child;
+            }
+            node.subscription = subscription;
+        }
+
+        /**
+         * Checks if any other subscription below this node matches every topic the levels from
+         * <code>index</code> on can match.
+         */
+        private boolean isCovered(String[] levels, int index, String self) {
+            if (index == levels.length) {
+                return subscription != null && !subscription.equals(self);
+            }
+
+            final Node multiLevel = children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevel != null && multiLevel.subscription != null && !multiLevel.subscription.equals(self)) {
+                return true;
+            }
+            if (isMultiLevelWildcard(levels, index)) {
+                return false;
+            }
+
+            final String level = levels[index];
+            for (Node wildcard : prefixWildcards) {
+                if (level.startsWith(wildcard.prefix) && wildcard.isCovered(levels, index + 1, self)) {
+                    return true;
+                }
+            }
+            final Node literal = children.get(level);
+            return literal != null && literal.prefix == null && literal.isCovered(levels, index + 1, self);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed wheel timer for many short timeouts that rarely fire. Scheduling only enqueues the timeout, the
+ * timer thread moves it into the bucket of its tick and expires it when the wheel reaches the bucket.
+ * Timeouts completed in between are dropped at that point, so cancelling costs nothing. Expiry is accurate
+ * to one tick.
+ */
+final class SolaceTimerWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceTimerWheel.class);
+
+    /**
+     * A timeout scheduled on the wheel.
+     */
+    abstract static class Timeout {
+        private long deadlineNanos;
+        private long rounds;
+        private Timeout next;
+
+        /**
+         * @return <code>true</code> if the timeout is obsolete and can be dropped without expiring it.
+         */
+        protected abstract boolean isDone();
+
+        /**
+         * Called on the timer thread when the deadline passed and the timeout is not done.
+         */
+        protected abstract void expire();
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final long startNanos;
+    private final Thread timerThread;
+    private volatile boolean closed;
+    private long tick;
+
+    SolaceTimerWheel(String name, long tickNanos, int wheelSize) {
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.buckets = new Timeout[wheelSize];
+        this.startNanos = System.nanoTime();
+        this.timerThread = new Thread(this::run, name);
+        this.timerThread.setDaemon(true);
+        this.timerThread.start();
+    }
+
+    void schedule(Timeout timeout, long delayNanos) {
+        timeout.deadlineNanos = System.nanoTime() + delayNanos;
+        scheduled.add(timeout);
+    }
+
+    private void run() {
+        while (!closed) {
+            final long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long remaining;
+            while ((remaining = tickDeadline - System.nanoTime()) > 0 && !closed) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            transferScheduled();
+            expireBucket((int) tick & mask);
+            tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isDone()) {
+                continue;
+            }
+            final long deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+            timeout.rounds = (deadlineTick - tick) / buckets.length;
+            final int bucket = (int) deadlineTick & mask;
+            timeout.next = buckets[bucket];
+            buckets[bucket] = timeout;
+        }
+    }
+
+    private void expireBucket(int bucket) {
+        Timeout previous = null;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+            final boolean remove;
+            if (timeout.isDone()) {
+                remove = true;
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+                remove = false;
+            } else {
+                remove = true;
+                try {
+                    timeout.expire();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to expire timeout", e);
+                }
+            }
+            if (remove) {
+                timeout.next = null;
+                if (previous == null) {
+                    buckets[bucket] = next;
+                } else {
+                    previous.next = next;
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(timerThread);
+    }
+}
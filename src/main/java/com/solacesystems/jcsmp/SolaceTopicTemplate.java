@@ -0,0 +1,163 @@
+package com.solacesystems.jcsmp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A precompiled topic template like <code>acme/{region}/{entity}/{id}/v1</code>. Rendering appends the
+ * literal parts and the given variable values to a reusable per thread buffer. The rendered topic is looked
+ * up in a small direct-mapped table of recently resolved topics by comparing it with the topic name, so
+ * resolving a known topic allocates nothing. Topics not found there are resolved through the
+ * {@link SolaceDestinationCache}.
+ * <p>
+ * Variable values are inserted as is, a value containing <code>/</code> adds topic levels.
+ */
+public final class SolaceTopicTemplate {
+
+    private static final int RESOLVED_TOPICS_SIZE = 1024;
+
+    private final String pattern;
+    private final String[] literals;
+    private final String[] variableNames;
+    private final SolaceDestinationCache destinationCache;
+    private final AtomicReferenceArray<Topic> resolvedTopics = new AtomicReferenceArray<>(RESOLVED_TOPICS_SIZE);
+    private final ThreadLocal<StringBuilder> buffer;
+
+    /**
+     * Compiles the given topic template.
+     *
+     * @param pattern          The topic pattern with variables in curly braces.
+     * @param destinationCache The cache resolving rendered topic names.
+     * @throws IllegalArgumentException if the pattern contains unbalanced or empty curly braces.
+     */
+    public SolaceTopicTemplate(String pattern, SolaceDestinationCache destinationCache) {
+        this.pattern = pattern;
+        this.destinationCache = destinationCache;
+
+        final List<String> literalParts = new ArrayList<>();
+        final List<String> variables = new ArrayList<>();
+        int literalStart = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '{') {
+                final int end = pattern.indexOf('}', i + 1);
+                if (end < 0 || end == i + 1 || pattern.substring(i + 1, end).indexOf('{') >= 0) {
+                    throw new IllegalArgumentException("Invalid variable at index " + i + " in topic template " + pattern);
+                }
+                literalParts.add(pattern.substring(literalStart, i));
+                variables.add(pattern.substring(i + 1, end));
+                literalStart = end + 1;
+                i = end;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("Unbalanced '}' at index " + i + " in topic template " + pattern);
+            }
+        }
+        literalParts.add(pattern.substring(literalStart));
+
+        this.literals = literalParts.toArray(new String[0]);
+        this.variableNames = variables.toArray(new String[0]);
+        this.buffer = ThreadLocal.withInitial(() -> new StringBuilder(pattern.length() + 64));
+    }
+
+    /**
+     * @return The topic pattern this template was compiled from.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return The variable names in the order the values have to be passed to <code>resolve</code>.
+     */
+    public List<String> getVariableNames() {
+        return List.of(variableNames);
+    }
+
+    /**
+     * Renders a template with one variable, see {@link #resolve(CharSequence...)}.
+     */
+    public Topic resolve(CharSequence value) {
+        checkVariableCount(1);
+        final StringBuilder topicName = start();
+        topicName.append(value).append(literals[1]);
+        return lookup(topicName);
+    }
+
+    /**
+     * Renders a template with two variables, see {@link #resolve(CharSequence...)}.
+     */
+    public Topic resolve(CharSequence value0, CharSequence value1) {
+        checkVariableCount(2);
+        final StringBuilder topicName = start();
+        topicName.append(value0).append(literals[1]).append(value1).append(literals[2]);
+        return lookup(topicName);
+    }
+
+    /**
+     * Renders a template with three variables, see {@link #resolve(CharSequence...)}.
+     */
+    public Topic resolve(CharSequence value0, CharSequence value1, CharSequence value2) {
+        checkVariableCount(3);
+        final StringBuilder topicName = start();
+        topicName.append(value0).append(literals[1]).append(value1).append(literals[2])
+                .append(value2).append(literals[3]);
+        return lookup(topicName);
+    }
+
+    /**
+     * Renders a template with four variables, see {@link #resolve(CharSequence...)}.
+     */
+    public Topic resolve(CharSequence value0, CharSequence value1, CharSequence value2, CharSequence value3) {
+        checkVariableCount(4);
+        final StringBuilder topicName = start();
+        topicName.append(value0).append(literals[1]).append(value1).append(literals[2])
+                .append(value2).append(literals[3]).append(value3).append(literals[4]);
+        return lookup(topicName);
+    }
+
+    /**
+     * Renders the template with the given values and returns the resolved topic.
+     *
+     * @param values The variable values in the order of {@link #getVariableNames()}.
+     * @return The cached topic.
+     * @throws IllegalArgumentException if the number of values does not match the number of variables.
+     */
+    public Topic resolve(CharSequence... values) {
+        checkVariableCount(values.length);
+        final StringBuilder topicName = start();
+        for (int i = 0; i < values.length; i++) {
+            topicName.append(values[i]).append(literals[i + 1]);
+        }
+        return lookup(topicName);
+    }
+
+    private void checkVariableCount(int count) {
+        if (count != variableNames.length) {
+            throw new IllegalArgumentException(String.format("Topic template %s expects %d values, got %d",
+                    pattern, variableNames.length, count));
+        }
+    }
+
+    private StringBuilder start() {
+        final StringBuilder topicName = buffer.get();
+        topicName.setLength(0);
+        return topicName.append(literals[0]);
+    }
+
+    private Topic lookup(StringBuilder topicName) {
+        int hash = 0;
+        for (int i = 0; i < topicName.length(); i++) {
+            hash = 31 * hash + topicName.charAt(i);
+        }
+        final int index = (hash ^ (hash >>> 16)) & (RESOLVED_TOPICS_SIZE - 1);
+
+        final Topic resolved = resolvedTopics.get(index);
+        if (resolved != null && resolved.getName().contentEquals(topicName)) {
+            return resolved;
+        }
+        final Topic topic = destinationCache.getTopic(topicName.toString());
+        resolvedTopics.set(index, topic);
+        return topic;
+    }
+}
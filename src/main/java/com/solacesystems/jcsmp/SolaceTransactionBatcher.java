@@ -0,0 +1,401 @@
+package com.solacesystems.jcsmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Groups the consumes and publishes of a {@link TransactedSession} into batched commits. A commit happens
+ * when the transaction reached the maximum number of messages or bytes, or its first message is older than
+ * the maximum delay.
+ * <p>
+ * Work belonging together, like consuming a message and publishing its results, should run as one
+ * {@link #execute(UnitOfWork) unit of work}. Commits never split a unit, and a failing unit rolls back the
+ * transaction: the consumed messages are redelivered by the broker, the published messages are discarded.
+ * The same applies when the broker rolls back a commit.
+ * <p>
+ * A flow of the transacted session adds a message to the transaction when it delivers it, before its unit
+ * of work runs. A commit from another thread could commit such a message before it was processed, so
+ * batchers consuming messages commit on the consuming thread only: on operations, and by
+ * {@link #commitIfDue()}, e.g. after a receive timed out. The scheduled delay check of the constructor only
+ * commits until the first message was {@link #consumed(XMLMessage) consumed}, and serves batchers that only
+ * publish.
+ */
+public class SolaceTransactionBatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolaceTransactionBatcher.class);
+
+    /**
+     * Work consuming and publishing messages within the current transaction.
+     */
+    @FunctionalInterface
+    public interface UnitOfWork {
+        void run() throws JCSMPException;
+    }
+
+    private final TransactedSession transactedSession;
+    private final XMLMessageProducer producer;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long maxDelayNanos;
+    private final ScheduledFuture<?> delayCheck;
+    private final ReentrantLock lock = new ReentrantLock();
+    @Nullable
+    private final Runnable onClose;
+
+    private int unitDepth;
+    private boolean consuming;
+    private int messages;
+    private long bytes;
+    private long firstMessageNanos;
+
+    private long commits;
+    private long rollbacks;
+    private long lastCommitNanos;
+    private long totalCommitNanos;
+    private int lastTransactionSize;
+    private int maxTransactionSize;
+
+    /**
+     * Constructs a new SolaceTransactionBatcher.
+     *
+     * @param transactedSession The transacted session to commit.
+     * @param maxMessages       The number of consumed and published messages that triggers a commit.
+     * @param maxBytes          The number of consumed and published attachment bytes that triggers a commit.
+     * @param maxDelay          The age of the first message of a transaction that triggers a commit.
+     * @param taskScheduler     The scheduler checking the delay between operations of a batcher that only
+     *                          publishes, or <code>null</code> to check it on operations only.
+     * @throws JCSMPException if the producer can not be created.
+     */
+    public SolaceTransactionBatcher(TransactedSession transactedSession,
+                                    int maxMessages,
+                                    long maxBytes,
+                                    Duration maxDelay,
+                                    @Nullable TaskScheduler taskScheduler) throws JCSMPException {
+        this(transactedSession, maxMessages, maxBytes, maxDelay, taskScheduler, null);
+    }
+
+    SolaceTransactionBatcher(TransactedSession transactedSession,
+                             int maxMessages,
+                             long maxBytes,
+                             Duration maxDelay,
+                             @Nullable TaskScheduler taskScheduler,
+                             @Nullable Runnable onClose) throws JCSMPException {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("maxMessages must be greater than 0");
+        }
+        this.transactedSession = transactedSession;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.onClose = onClose;
+        this.producer = transactedSession.getMessageProducer(new PublishErrorHandler());
+        this.delayCheck = taskScheduler == null ? null : taskScheduler.scheduleWithFixedDelay(this::scheduledCommit, maxDelay);
+    }
+
+    /**
+     * Publishes the message within the current transaction.
+     *
+     * @param message     The message to publish.
+     * @param destination The destination to publish to.
+     * @throws JCSMPException if the send or a triggered commit fails.
+     */
+    public void send(XMLMessage message, Destination destination) throws JCSMPException {
+        lock.lock();
+        try {
+            producer.send(message, destination);
+            record(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a message received by a flow of the transacted session towards the current transaction. From
+     * then on, the scheduled delay check no longer commits.
+     *
+     * @param message The consumed message.
+     * @throws JCSMPException if a triggered commit fails.
+     */
+    public void consumed(XMLMessage message) throws JCSMPException {
+        lock.lock();
+        try {
+            consuming = true;
+            record(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the unit of work within the current transaction. A commit triggered by the unit happens after it
+     * completed. If the unit fails, the transaction is rolled back.
+     *
+     * @param unit The work to run.
+     * @throws JCSMPException if the unit or a triggered commit fails.
+     */
+    public void execute(UnitOfWork unit) throws JCSMPException {
+        lock.lock();
+        try {
+            unitDepth++;
+            try {
+                unit.run();
+            } catch (JCSMPException | RuntimeException e) {
+                unitDepth--;
+                rollbackAfterFailure(e);
+                throw e;
+            }
+            unitDepth--;
+            commitIfFull();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(XMLMessage message) throws JCSMPException {
+        if (messages++ == 0) {
+            firstMessageNanos = System.nanoTime();
+        }
+        bytes += message.getAttachmentContentLength();
+        commitIfFull();
+    }
+
+    private void commitIfFull() throws JCSMPException {
+        if (unitDepth == 0 && (messages >= maxMessages || bytes >= maxBytes || isDue())) {
+            commit();
+        }
+    }
+
+    private boolean isDue() {
+        return messages > 0 && System.nanoTime() - firstMessageNanos >= maxDelayNanos;
+    }
+
+    /**
+     * Commits the current transaction if its first message is older than the maximum delay. Batchers
+     * consuming messages call it on the consuming thread, e.g. whenever a receive timed out.
+     *
+     * @throws JCSMPException if the commit fails.
+     */
+    public void commitIfDue() throws JCSMPException {
+        lock.lock();
+        try {
+            if (unitDepth == 0 && isDue()) {
+                commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduledCommit() {
+        if (!lock.tryLock()) {
+            // an operation holds the lock and checks the delay itself
+            return;
+        }
+        try {
+            // a flow may have delivered a message whose unit of work did not start yet
+            if (!consuming && unitDepth == 0 && isDue()) {
+                commit();
+            }
+        } catch (JCSMPException e) {
+            logger.error("Scheduled commit failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the current transaction. If the broker rolls it back, the consumed messages are redelivered.
+     *
+     * @throws RollbackException if the broker rolled back the transaction.
+     * @throws JCSMPException    if the commit fails.
+     */
+    public void commit() throws JCSMPException {
+        lock.lock();
+        try {
+            if (messages == 0) {
+                return;
+            }
+            final int size = messages;
+            final long start = System.nanoTime();
+            try {
+                transactedSession.commit();
+            } catch (RollbackException e) {
+                rollbacks++;
+                logger.warn("Transaction of {} messages was rolled back by the broker", size, e);
+                throw e;
+            } catch (JCSMPException | RuntimeException e) {
+                rollbackAfterFailure(e);
+                throw e;
+            } finally {
+                reset();
+            }
+            lastCommitNanos = System.nanoTime() - start;
+            totalCommitNanos += lastCommitNanos;
+            commits++;
+            lastTransactionSize = size;
+            maxTransactionSize = Math.max(maxTransactionSize, size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rolls back the current transaction. The consumed messages are redelivered, the published messages are
+     * discarded.
+     *
+     * @throws JCSMPException if the rollback fails.
+     */
+    public void rollback() throws JCSMPException {
+        lock.lock();
+        try {
+            reset();
+            transactedSession.rollback();
+            rollbacks++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rollbackAfterFailure(Exception cause) {
+        try {
+            rollback();
+        } catch (JCSMPException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void reset() {
+        messages = 0;
+        bytes = 0;
+    }
+
+    /**
+     * @return The transacted session of this batcher, e.g. to create flows.
+     */
+    public TransactedSession getTransactedSession() {
+        return transactedSession;
+    }
+
+    /**
+     * @return The number of messages in the current transaction.
+     */
+    public int getPendingMessageCount() {
+        lock.lock();
+        try {
+            return messages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of successful commits.
+     */
+    public long getCommitCount() {
+        lock.lock();
+        try {
+            return commits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of rolled back transactions, by the application or the broker.
+     */
+    public long getRollbackCount() {
+        lock.lock();
+        try {
+            return rollbacks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The duration of the last successful commit in nanoseconds.
+     */
+    public long getLastCommitNanos() {
+        lock.lock();
+        try {
+            return lastCommitNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The average duration of the successful commits in nanoseconds.
+     */
+    public long getAverageCommitNanos() {
+        lock.lock();
+        try {
+            return commits == 0 ? 0 : totalCommitNanos / commits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of messages of the last committed transaction.
+     */
+    public int getLastTransactionSize() {
+        lock.lock();
+        try {
+            return lastTransactionSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The largest number of messages committed in one transaction.
+     */
+    public int getMaxTransactionSize() {
+        lock.lock();
+        try {
+            return maxTransactionSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the pending messages, stops the delay check and closes the producer.
+     *
+     * @throws JCSMPException if the final commit fails.
+     */
+    @Override
+    public void close() throws JCSMPException {
+        if (delayCheck != null) {
+            delayCheck.cancel(false);
+        }
+        try {
+            commit();
+        } finally {
+            producer.close();
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    private static final class PublishErrorHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+
+        @Override
+        public void responseReceivedEx(Object key) {
+            // transacted messages are acknowledged by the commit
+        }
+
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            logger.warn("Failed to publish transacted message {}", key, cause);
+        }
+    }
+}
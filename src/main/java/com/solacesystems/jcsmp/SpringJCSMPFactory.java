@@ -1,7 +1,15 @@
 package com.solacesystems.jcsmp;
 
 import static com.solacesystems.jcsmp.JCSMPProperties.AUTHENTICATION_SCHEME;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * Wrapper of JCSMP Singleton Factory to more easily work within Spring Auto Configuration
@@ -9,13 +17,24 @@ import org.springframework.lang.Nullable;
  */
 public class SpringJCSMPFactory {
 
-    protected JCSMPProperties jcsmpProperties;
+    private static final Logger logger = LoggerFactory.getLogger(SpringJCSMPFactory.class);
+
+    protected volatile JCSMPProperties jcsmpProperties;
     protected SolaceSessionOAuth2TokenProvider solaceSessionOAuth2TokenProvider;
+    protected SolaceDestinationCache destinationCache;
+    private final List<Consumer<JCSMPProperties>> propertiesListeners = new CopyOnWriteArrayList<>();
 
     public SpringJCSMPFactory(JCSMPProperties properties,
                               @Nullable SolaceSessionOAuth2TokenProvider solaceSessionOAuth2TokenProvider) {
+        this(properties, solaceSessionOAuth2TokenProvider, new SolaceDestinationCache());
+    }
+
+    public SpringJCSMPFactory(JCSMPProperties properties,
+                              @Nullable SolaceSessionOAuth2TokenProvider solaceSessionOAuth2TokenProvider,
+                              SolaceDestinationCache destinationCache) {
         this.jcsmpProperties = (JCSMPProperties) properties.clone();
         this.solaceSessionOAuth2TokenProvider = solaceSessionOAuth2TokenProvider;
+        this.destinationCache = destinationCache;
     }
 
 
@@ -57,15 +76,22 @@ public class SpringJCSMPFactory {
     public JCSMPSession createSession(
             Context context,
             SessionEventHandler eventHandler) throws InvalidPropertiesException {
-        final String authScheme = jcsmpProperties.getStringProperty(AUTHENTICATION_SCHEME);
+        return createSession(this.jcsmpProperties, context, eventHandler);
+    }
+
+    private JCSMPSession createSession(JCSMPProperties properties,
+                                       Context context,
+                                       SessionEventHandler eventHandler) throws InvalidPropertiesException {
+        final String authScheme = properties.getStringProperty(AUTHENTICATION_SCHEME);
         if (JCSMPProperties.AUTHENTICATION_SCHEME_OAUTH2.equalsIgnoreCase(authScheme)) {
-            return createSessionWithOAuth2(context, eventHandler);
+            return createSessionWithOAuth2(properties, context, eventHandler);
         } else {
-            return JCSMPFactory.onlyInstance().createSession(jcsmpProperties, context, eventHandler);
+            return JCSMPFactory.onlyInstance().createSession(properties, context, eventHandler);
         }
     }
 
-    private JCSMPSession createSessionWithOAuth2(Context context,
+    private JCSMPSession createSessionWithOAuth2(JCSMPProperties properties,
+                                                 Context context,
                                                  SessionEventHandler eventHandler) throws InvalidPropertiesException {
         if (eventHandler != null && !(eventHandler instanceof SolaceOAuth2SessionEventHandler)) {
             throw new IllegalArgumentException(String.format(
@@ -81,15 +107,295 @@ public class SpringJCSMPFactory {
 
         //Fetch and set the initial OAuth2 token
         final String accessToken = this.solaceSessionOAuth2TokenProvider.getAccessToken();
-        this.jcsmpProperties.setProperty(JCSMPProperties.OAUTH2_ACCESS_TOKEN, accessToken);
+        properties.setProperty(JCSMPProperties.OAUTH2_ACCESS_TOKEN, accessToken);
 
         final JCSMPSession jcsmpSession = JCSMPFactory.onlyInstance()
-                .createSession(this.jcsmpProperties, context, solaceOAuth2SessionEventHandler);
+                .createSession(properties, context, solaceOAuth2SessionEventHandler);
         //inject the JCSMP Session into the event handler
         solaceOAuth2SessionEventHandler.setJcsmpSession(jcsmpSession);
         return jcsmpSession;
     }
 
+    /**
+     * Acquires a {@link JCSMPSession} in the given {@link Context} and returns a
+     * {@link SolaceSubscriptionManager} managing its topic subscriptions. The manager receives the
+     * session events, so the minimal subscription set is replayed after a reconnect. The session is not
+     * connected yet.
+     *
+     * @param context The <code>Context</code> in which the new session will be created and
+     *                associated with. If <code>null</code>, uses the default context.
+     * @return A subscription manager for a newly constructed session.
+     * @throws InvalidPropertiesException on error
+     */
+    public SolaceSubscriptionManager createSubscriptionManager(Context context) throws InvalidPropertiesException {
+        final SolaceSubscriptionManager subscriptionManager = new SolaceSubscriptionManager();
+        subscriptionManager.setJcsmpSession(createSession(context, chainEventHandler(subscriptionManager)));
+        return subscriptionManager;
+    }
+
+    /**
+     * Creates and connects <code>stripes</code> sessions in the default <code>Context</code> and returns a
+     * {@link SolaceStripedProducer} spreading sends across their producers. If a client name is configured,
+     * each session gets the suffix <code>-&lt;stripe&gt;</code> to keep the client names unique. Sessions
+     * replaced after {@link #updateJCSMPProperties(Consumer)} get the suffix
+     * <code>-&lt;stripe&gt;-&lt;generation&gt;</code>, as the old session of a stripe is still connected
+     * while its replacement connects.
+     *
+     * @param stripes      The number of sessions to publish with.
+     * @param eventHandler The handler for publish acknowledgements and errors of all stripes.
+     * @return A striped producer on newly connected sessions.
+     * @throws JCSMPException if a session can not be created or connected.
+     */
+    public SolaceStripedProducer createStripedProducer(int stripes,
+                                                       JCSMPStreamingPublishCorrelatingEventHandler eventHandler) throws JCSMPException {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be greater than 0");
+        }
+        final List<JCSMPSession> sessions = new ArrayList<>(stripes);
+        try {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                final JCSMPSession session = createSession(stripeProperties(jcsmpProperties, stripe, 0), null, null);
+                sessions.add(session);
+                session.connect();
+            }
+            final StripedProducerRollover rollover = new StripedProducerRollover();
+            rollover.stripedProducer = new SolaceStripedProducer(sessions, eventHandler, () -> removeJCSMPPropertiesListener(rollover));
+            addJCSMPPropertiesListener(rollover);
+            return rollover.stripedProducer;
+        } catch (JCSMPException | RuntimeException e) {
+            sessions.forEach(JCSMPSession::closeSession);
+            throw e;
+        }
+    }
+
+    /**
+     * Rolls the sessions of a striped producer over to the updated properties, one stripe at a time.
+     */
+    private final class StripedProducerRollover implements Consumer<JCSMPProperties> {
+        private SolaceStripedProducer stripedProducer;
+        private int generation;
+
+        @Override
+        public void accept(JCSMPProperties properties) {
+            final int nextGeneration = ++generation;
+            try {
+                stripedProducer.rollover(stripe -> {
+                    final JCSMPSession session = createSession(stripeProperties(properties, stripe, nextGeneration), null, null);
+                    try {
+                        session.connect();
+                    } catch (JCSMPException | RuntimeException e) {
+                        session.closeSession();
+                        throw e;
+                    }
+                    return session;
+                });
+            } catch (JCSMPException | RuntimeException e) {
+                logger.error("Failed to roll over striped producer sessions", e);
+            }
+        }
+    }
+
+    /**
+     * Acquires and connects a {@link JCSMPSession} in the given {@link Context} and returns a
+     * {@link SolaceJournalingPublisher} on it. The publisher receives the session events, so it journals
+     * messages while the session is down and replays them after the reconnect.
+     *
+     * @param context      The <code>Context</code> in which the new session will be created and
+     *                     associated with. If <code>null</code>, uses the default context.
+     * @param journal      The journal of messages that could not be sent directly.
+     * @param eventHandler The handler for publish acknowledgements and errors.
+     * @return A started journaling publisher on a newly connected session.
+     * @throws JCSMPException if the session can not be created or connected.
+     */
+    public SolaceJournalingPublisher createJournalingPublisher(Context context,
+                                                               SolaceOutboundJournal journal,
+                                                               JCSMPStreamingPublishCorrelatingEventHandler eventHandler) throws JCSMPException {
+        final SolaceJournalingPublisher journalingPublisher = new SolaceJournalingPublisher(journal, eventHandler);
+        final JCSMPSession session = createSession(context, chainEventHandler(journalingPublisher));
+        try {
+            session.connect();
+            journalingPublisher.start(session);
+        } catch (JCSMPException | RuntimeException e) {
+            session.closeSession();
+            throw e;
+        }
+        return journalingPublisher;
+    }
+
+    /**
+     * Acquires and connects a {@link JCSMPSession} in the given {@link Context} and returns a
+     * {@link SolaceRequestReplyClient} receiving all replies on its P2P inbox. The client owns the session.
+     *
+     * @param context The <code>Context</code> in which the new session will be created and
+     *                associated with. If <code>null</code>, uses the default context.
+     * @return A request/reply client on a newly connected session.
+     * @throws JCSMPException if the session can not be created or connected.
+     */
+    public SolaceRequestReplyClient createRequestReplyClient(Context context) throws JCSMPException {
+        final JCSMPSession session = createSession(context, null);
+        try {
+            session.connect();
+            return new SolaceRequestReplyClient(session);
+        } catch (JCSMPException | RuntimeException e) {
+            session.closeSession();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires and connects a {@link JCSMPSession} in the given {@link Context} and returns a
+     * {@link SolaceTransactionBatcher} on a new {@link TransactedSession} of it. Closing the batcher commits
+     * the pending messages and closes both sessions.
+     *
+     * @param context       The <code>Context</code> in which the new session will be created and
+     *                      associated with. If <code>null</code>, uses the default context.
+     * @param maxMessages   The number of consumed and published messages that triggers a commit.
+     * @param maxBytes      The number of consumed and published attachment bytes that triggers a commit.
+     * @param maxDelay      The age of the first message of a transaction that triggers a commit.
+     * @param taskScheduler The scheduler checking the delay between operations of a batcher that only
+     *                      publishes, or <code>null</code> to check it on operations only.
+     * @return A transaction batcher on a newly connected session.
+     * @throws JCSMPException if the session or the transacted session can not be created.
+     */
+    public SolaceTransactionBatcher createTransactionBatcher(Context context,
+                                                             int maxMessages,
+                                                             long maxBytes,
+                                                             Duration maxDelay,
+                                                             @Nullable TaskScheduler taskScheduler) throws JCSMPException {
+        final JCSMPSession session = createSession(context, null);
+        TransactedSession transactedSession = null;
+        try {
+            session.connect();
+            transactedSession = session.createTransactedSession();
+            final TransactedSession owned = transactedSession;
+            return new SolaceTransactionBatcher(transactedSession, maxMessages, maxBytes, maxDelay, taskScheduler, () -> {
+                owned.close();
+                session.closeSession();
+            });
+        } catch (JCSMPException | RuntimeException e) {
+            if (transactedSession != null) {
+                transactedSession.close();
+            }
+            session.closeSession();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the properties of new sessions by an updated copy, e.g. with a reloaded client keystore, and
+     * notifies the registered listeners. Sessions created before keep their properties, as JCSMP does not
+     * apply property changes to existing sessions. Striped producers created by this factory roll over to
+     * new sessions one stripe at a time, waiting for the acknowledgements of each replaced stripe. Journaling
+     * publishers, request/reply clients and transaction batchers keep their sessions; recreate them from a
+     * listener registered by {@link #addJCSMPPropertiesListener(Consumer)}.
+     *
+     * @param update Applies the changes to a copy of the current properties.
+     */
+    public synchronized void updateJCSMPProperties(Consumer<JCSMPProperties> update) {
+        final JCSMPProperties properties = (JCSMPProperties) jcsmpProperties.clone();
+        update.accept(properties);
+        jcsmpProperties = properties;
+        for (Consumer<JCSMPProperties> listener : propertiesListeners) {
+            try {
+                listener.accept(properties);
+            } catch (RuntimeException e) {
+                logger.error("JCSMP properties listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener called after {@link #updateJCSMPProperties(Consumer)}, e.g. to recreate
+     * sessions owned by the application.
+     *
+     * @param listener The listener receiving the updated properties.
+     */
+    public void addJCSMPPropertiesListener(Consumer<JCSMPProperties> listener) {
+        propertiesListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered by {@link #addJCSMPPropertiesListener(Consumer)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeJCSMPPropertiesListener(Consumer<JCSMPProperties> listener) {
+        propertiesListeners.remove(listener);
+    }
+
+    private static JCSMPProperties stripeProperties(JCSMPProperties source, int stripe, int generation) {
+        final JCSMPProperties properties = (JCSMPProperties) source.clone();
+        final String clientName = properties.getStringProperty(JCSMPProperties.CLIENT_NAME);
+        if (clientName != null && !clientName.isEmpty()) {
+            // the broker rejects a second session with the client name of a connected one
+            final String suffix = generation == 0 ? "-" + stripe : "-" + stripe + "-" + generation;
+            properties.setProperty(JCSMPProperties.CLIENT_NAME, clientName + suffix);
+        }
+        return properties;
+    }
+
+    /**
+     * Returns a session event handler that calls the given handler after the OAuth2 token refresh, if the
+     * authentication scheme is OAuth2. Otherwise the given handler is returned as is.
+     */
+    protected SessionEventHandler chainEventHandler(SessionEventHandler eventHandler) {
+        final String authScheme = jcsmpProperties.getStringProperty(AUTHENTICATION_SCHEME);
+        if (!JCSMPProperties.AUTHENTICATION_SCHEME_OAUTH2.equalsIgnoreCase(authScheme)) {
+            return eventHandler;
+        }
+        return new DefaultSolaceOAuth2SessionEventHandler(this.jcsmpProperties, this.solaceSessionOAuth2TokenProvider) {
+            @Override
+            public void handleEvent(SessionEventArgs sessionEventArgs) {
+                super.handleEvent(sessionEventArgs);
+                eventHandler.handleEvent(sessionEventArgs);
+            }
+        };
+    }
+
+    /* DESTINATION OPERATIONS */
+    /**
+     * Returns the {@link Topic} with the given name. Topics are created and validated once and then
+     * served from the {@link SolaceDestinationCache}.
+     *
+     * @param topicName The topic name.
+     * @return The cached <code>Topic</code> instance.
+     */
+    public Topic createTopic(String topicName) {
+        return destinationCache.getTopic(topicName);
+    }
+
+    /**
+     * Returns the {@link Queue} with the given name. Queues are created and validated once and then
+     * served from the {@link SolaceDestinationCache}.
+     *
+     * @param queueName The queue name.
+     * @return The cached <code>Queue</code> instance.
+     */
+    public Queue createQueue(String queueName) {
+        return destinationCache.getQueue(queueName);
+    }
+
+    /**
+     * Compiles a topic template like <code>acme/{region}/{entity}/{id}/v1</code>, resolving its rendered
+     * topics through the destination cache of this factory.
+     *
+     * @param pattern The topic pattern with variables in curly braces.
+     * @return The compiled topic template.
+     */
+    public SolaceTopicTemplate createTopicTemplate(String pattern) {
+        return new SolaceTopicTemplate(pattern, destinationCache);
+    }
+
+    /**
+     * Returns the cache serving {@link #createTopic(String)} and {@link #createQueue(String)}, e.g. to read
+     * its hit and miss counts.
+     *
+     * @return The destination cache of this factory.
+     */
+    public SolaceDestinationCache getDestinationCache() {
+        return destinationCache;
+    }
+
     /* CONTEXT OPERATIONS */
     /**
      * Returns a reference to the default <code>Context</code>. There is a single instance of a
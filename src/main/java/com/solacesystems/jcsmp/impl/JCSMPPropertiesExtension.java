@@ -6,7 +6,7 @@ import static com.solacesystems.jcsmp.impl.JCSMPPropertiesTextMarshaling.STRINGP
 
 /**
  * This class configures the {@link com.solacesystems.jcsmp.JCSMPProperties} class to take additional properties used to pass the
- * certificates and private key in the PEM format.
+ * certificates and private key in the PEM format, either as text or as file.
  */
 public final class JCSMPPropertiesExtension {
 
@@ -25,6 +25,21 @@ public final class JCSMPPropertiesExtension {
      */
     public static final String SSL_TRUST_CERT = "SSL_TRUST_CERT";
 
+    /**
+     * Solace API property to read the client certificate in the PEM format from a file.
+     */
+    public static final String SSL_CLIENT_CERT_FILE = "SSL_CLIENT_CERT_FILE";
+
+    /**
+     * Solace API property to read the client private key in the PEM format from a file.
+     */
+    public static final String SSL_PRIVATE_KEY_FILE = "SSL_PRIVATE_KEY_FILE";
+
+    /**
+     * Solace API property to read the trust certificate in the PEM format from a file.
+     */
+    public static final String SSL_TRUST_CERT_FILE = "SSL_TRUST_CERT_FILE";
+
     /**
      * Enables the Solace configuration to take additional authentication properties in the PEM format.
      */
@@ -33,6 +48,9 @@ public final class JCSMPPropertiesExtension {
         propertySetters.put(SSL_CLIENT_CERT, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_CLIENT_CERT, SSL_CLIENT_CERT, STRINGPARSER));
         propertySetters.put(SSL_PRIVATE_KEY, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_PRIVATE_KEY, SSL_PRIVATE_KEY, STRINGPARSER));
         propertySetters.put(SSL_TRUST_CERT, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_TRUST_CERT, SSL_TRUST_CERT, STRINGPARSER));
+        propertySetters.put(SSL_CLIENT_CERT_FILE, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_CLIENT_CERT_FILE, SSL_CLIENT_CERT_FILE, STRINGPARSER));
+        propertySetters.put(SSL_PRIVATE_KEY_FILE, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_PRIVATE_KEY_FILE, SSL_PRIVATE_KEY_FILE, STRINGPARSER));
+        propertySetters.put(SSL_TRUST_CERT_FILE, new JCSMPPropertiesTextMarshaling.BasicPropertySetter(SSL_TRUST_CERT_FILE, SSL_TRUST_CERT_FILE, STRINGPARSER));
     }
 
     private JCSMPPropertiesExtension() {
@@ -0,0 +1,162 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal DER reader and writer for the structures around private keys: sequences, context specific tags,
+ * octet and bit strings, integers and object identifiers with definite lengths.
+ */
+final class DerCodec {
+
+    static final int INTEGER = 0x02;
+    static final int BIT_STRING = 0x03;
+    static final int OCTET_STRING = 0x04;
+    static final int NULL = 0x05;
+    static final int OBJECT_IDENTIFIER = 0x06;
+    static final int SEQUENCE = 0x30;
+    static final int CONTEXT_0 = 0xa0;
+    static final int CONTEXT_1 = 0xa1;
+
+    private DerCodec() {
+    }
+
+    /**
+     * A DER element within an encoding.
+     */
+    static final class Element {
+        private final byte[] source;
+        private final int tag;
+        private final int start;
+        private final int contentStart;
+        private final int end;
+
+        private Element(byte[] source, int tag, int start, int contentStart, int end) {
+            this.source = source;
+            this.tag = tag;
+            this.start = start;
+            this.contentStart = contentStart;
+            this.end = end;
+        }
+
+        int getTag() {
+            return tag;
+        }
+
+        byte[] getContent() {
+            final byte[] content = new byte[end - contentStart];
+            System.arraycopy(source, contentStart, content, 0, content.length);
+            return content;
+        }
+
+        byte[] getEncoded() {
+            final byte[] encoded = new byte[end - start];
+            System.arraycopy(source, start, encoded, 0, encoded.length);
+            return encoded;
+        }
+
+        /**
+         * @return The elements contained in this constructed element.
+         * @throws IllegalArgumentException if the content is not valid DER.
+         */
+        List<Element> getChildren() {
+            final List<Element> children = new ArrayList<>();
+            for (int offset = contentStart; offset < end; ) {
+                final Element child = read(source, offset, end);
+                children.add(child);
+                offset = child.end;
+            }
+            return children;
+        }
+    }
+
+    /**
+     * Reads the element at the beginning of the encoding.
+     *
+     * @throws IllegalArgumentException if the encoding is not valid DER.
+     */
+    static Element read(byte[] der) {
+        return read(der, 0, der.length);
+    }
+
+    private static Element read(byte[] der, int offset, int limit) {
+        if (limit - offset < 2) {
+            throw new IllegalArgumentException("Truncated DER element at " + offset);
+        }
+        final int tag = der[offset] & 0xff;
+        int length = der[offset + 1] & 0xff;
+        int contentStart = offset + 2;
+        if (length > 0x7f) {
+            final int lengthBytes = length & 0x7f;
+            if (lengthBytes == 0 || lengthBytes > 3 || contentStart + lengthBytes > limit) {
+                throw new IllegalArgumentException("Unsupported DER length at " + offset);
+            }
+            length = 0;
+            for (int i = 0; i < lengthBytes; i++) {
+                length = length << 8 | der[contentStart++] & 0xff;
+            }
+        }
+        if (contentStart + length > limit) {
+            throw new IllegalArgumentException("Truncated DER element at " + offset);
+        }
+        return new Element(der, tag, offset, contentStart, contentStart + length);
+    }
+
+    /**
+     * @return The dotted notation of the object identifier.
+     * @throws IllegalArgumentException if the element is no object identifier.
+     */
+    static String objectIdentifier(Element element) {
+        if (element.getTag() != OBJECT_IDENTIFIER) {
+            throw new IllegalArgumentException("Expected an object identifier but found tag " + element.getTag());
+        }
+        final byte[] content = element.getContent();
+        final StringBuilder oid = new StringBuilder();
+        long value = 0;
+        for (int i = 0; i < content.length; i++) {
+            value = value << 7 | content[i] & 0x7f;
+            if ((content[i] & 0x80) == 0) {
+                if (oid.length() == 0) {
+                    final long first = Math.min(value / 40, 2);
+                    oid.append(first).append('.').append(value - first * 40);
+                } else {
+                    oid.append('.').append(value);
+                }
+                value = 0;
+            }
+        }
+        return oid.toString();
+    }
+
+    /**
+     * @return The DER encoding of an element with the given tag and the concatenated contents.
+     */
+    static byte[] encode(int tag, byte[]... contents) {
+        int length = 0;
+        for (byte[] content : contents) {
+            length += content.length;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(length + 5);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length < 0x100) {
+            out.write(0x81);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length);
+        } else {
+            out.write(0x83);
+            out.write(length >> 16);
+            out.write(length >> 8);
+            out.write(length);
+        }
+        for (byte[] content : contents) {
+            out.writeBytes(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -7,13 +7,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyStore;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
+import java.util.Map;
 
 import static com.solacesystems.jcsmp.JCSMPProperties.*;
 import static com.solacesystems.jcsmp.impl.JCSMPPropertiesExtension.*;
@@ -24,6 +29,9 @@ import static com.solacesystems.jcsmp.impl.JCSMPPropertiesExtension.*;
 final class JCSMPAuthenticationPropertiesPostProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(JCSMPAuthenticationPropertiesPostProcessor.class);
+    // JCSMP has no API to remove a property, so its internals are accessed through handles resolved once
+    private static final VarHandle PROPERTIES = resolve("_properties", Map.class);
+    private static final VarHandle IS_TRUST_STORE_SET = resolve("_isTrustStoreSet", Boolean.class);
 
     private final KeyStoreFactory keyStoreFactory;
     private final TaskScheduler taskScheduler;
@@ -40,24 +48,28 @@ final class JCSMPAuthenticationPropertiesPostProcessor {
             LOG.debug("AUTHENTICATION_SCHEME is not set to AUTHENTICATION_SCHEME_CLIENT_CERTIFICATE, skip...");
             return jcsmpProperties;
         }
-        if (!StringUtils.hasText(javaProperties.getStringProperty(SSL_PRIVATE_KEY))) {
+        final String privateKeyPem = readPem(javaProperties, SSL_PRIVATE_KEY, SSL_PRIVATE_KEY_FILE);
+        if (!StringUtils.hasText(privateKeyPem)) {
             LOG.warn("No SSL_PRIVATE_KEY present, skip...");
             return jcsmpProperties;
         }
-        if (!StringUtils.hasText(javaProperties.getStringProperty(SSL_CLIENT_CERT))) {
+        final String clientCertPem = readPem(javaProperties, SSL_CLIENT_CERT, SSL_CLIENT_CERT_FILE);
+        if (!StringUtils.hasText(clientCertPem)) {
             LOG.warn("No SSL_CLIENT_CERT present, skip...");
             return jcsmpProperties;
         }
 
         LOG.debug("Adding Solace ClientCert properties to JSCMPProperties");
 
-        KeyStore keyStore = keyStoreFactory.createClientKeyStore(javaProperties.getStringProperty(SSL_PRIVATE_KEY), javaProperties.getStringProperty(SSL_CLIENT_CERT));
+        KeyStore keyStore = keyStoreFactory.createClientKeyStore(privateKeyPem, clientCertPem);
 
         if (keyStore == null) {
             LOG.warn("No keyStore was created, skip...");
             return jcsmpProperties;
         }
-        checkValidToPeriodically(keyStoreFactory.getValidTo(javaProperties.getStringProperty(SSL_CLIENT_CERT)));
+        final String clientCertFile = StringUtils.hasText(javaProperties.getStringProperty(SSL_CLIENT_CERT))
+                ? null : javaProperties.getStringProperty(SSL_CLIENT_CERT_FILE);
+        checkValidToPeriodically(keyStoreFactory.getValidTo(keyStore), javaProperties, clientCertFile);
         jcsmpProperties.setProperty(SSL_IN_MEMORY_KEY_STORE, keyStore);
         jcsmpProperties.setProperty(SSL_KEY_STORE_PASSWORD, keyStoreFactory.getClientKeyStorePassword());
 
@@ -69,12 +81,13 @@ final class JCSMPAuthenticationPropertiesPostProcessor {
             unsetProperty(jcsmpProperties, "SSL_PRIVATE_KEY_ALIAS");
         }
 
-        if (!StringUtils.hasText(javaProperties.getStringProperty(SSL_TRUST_CERT))) {
+        final String trustCertPem = readPem(javaProperties, SSL_TRUST_CERT, SSL_TRUST_CERT_FILE);
+        if (!StringUtils.hasText(trustCertPem)) {
             LOG.debug("No SSL_TRUST_CERT present, dont add SSL_IN_MEMORY_TRUST_STORE");
             return jcsmpProperties;
         }
         LOG.debug("Adding Solace TrustStore properties to JSCMPProperties");
-        KeyStore trustStore = keyStoreFactory.createTrustStore(javaProperties.getStringProperty(SSL_TRUST_CERT));
+        KeyStore trustStore = keyStoreFactory.createTrustStore(trustCertPem);
         jcsmpProperties.setProperty(SSL_IN_MEMORY_TRUST_STORE, trustStore);
         if (jcsmpProperties.getProperty("SSL_TRUST_STORE") instanceof String && !StringUtils.hasText((CharSequence) jcsmpProperties.getProperty("SSL_TRUST_STORE"))) {
             jcsmpProperties.setProperty("SSL_TRUST_STORE", "");
@@ -84,7 +97,24 @@ final class JCSMPAuthenticationPropertiesPostProcessor {
         return jcsmpProperties;
     }
 
-    private void checkValidToPeriodically(Instant notAfter) {
+    /**
+     * Returns the PEM text of the property, or if it is empty, the content of the file named by the file property.
+     */
+    static String readPem(final SolaceJavaProperties javaProperties, final String property, final String fileProperty) {
+        final String pem = javaProperties.getStringProperty(property);
+        final String file = javaProperties.getStringProperty(fileProperty);
+        if (StringUtils.hasText(pem) || !StringUtils.hasText(file)) {
+            return pem;
+        }
+        try {
+            return Files.readString(Path.of(file));
+        } catch (IOException e) {
+            LOG.error("Could not read {} {}", fileProperty, file, e);
+            return null;
+        }
+    }
+
+    private void checkValidToPeriodically(Instant notAfter, SolaceJavaProperties javaProperties, String clientCertFile) {
         if (notAfter == null || !sslCertInfoProperties.isEnabled()) {
             return;
         }
@@ -100,7 +130,7 @@ final class JCSMPAuthenticationPropertiesPostProcessor {
         }
 
         taskScheduler.scheduleAtFixedRate(() -> {
-            long validForDays = Duration.between(Instant.now(), notAfter).toDays();
+            long validForDays = Duration.between(Instant.now(), currentValidTo(notAfter, javaProperties, clientCertFile)).toDays();
             if (validForDays < sslCertInfoProperties.getErrorInDays()) {
                 LOG.error("Your ssl client auth cert, used to auth at solace broker is going to be expired in {}days", validForDays);
             } else if (validForDays < sslCertInfoProperties.getWarnInDays()) {
@@ -109,27 +139,63 @@ final class JCSMPAuthenticationPropertiesPostProcessor {
         }, workDayBegin, Duration.ofDays(1));
     }
 
+    /**
+     * A certificate read from a file may have been rotated since startup, so its current expiration is read again
+     * from the keystore of the current key and certificate files.
+     */
+    private Instant currentValidTo(Instant notAfter, SolaceJavaProperties javaProperties, String clientCertFile) {
+        if (clientCertFile == null) {
+            return notAfter;
+        }
+        final String privateKeyPem = readPem(javaProperties, SSL_PRIVATE_KEY, SSL_PRIVATE_KEY_FILE);
+        final String clientCertPem = readPem(javaProperties, SSL_CLIENT_CERT, SSL_CLIENT_CERT_FILE);
+        if (!StringUtils.hasText(privateKeyPem) || !StringUtils.hasText(clientCertPem)) {
+            return notAfter;
+        }
+        final KeyStore keyStore = keyStoreFactory.createClientKeyStore(privateKeyPem, clientCertPem);
+        final Instant validTo = keyStore != null ? keyStoreFactory.getValidTo(keyStore) : null;
+        return validTo != null ? validTo : notAfter;
+    }
+
     @SuppressWarnings("unchecked")
     private void unsetProperty(JCSMPProperties jcsmpProperties, String key) {
-        try {
-            Field propertiesField = JCSMPPropertyMap.class.getDeclaredField("_properties");
-            propertiesField.setAccessible(true);
-            HashMap<String, Object> properties = (HashMap<String, Object>) propertiesField.get(jcsmpProperties);
-            properties.remove(key);
-        } catch (Exception ex) {
-            LOG.error("unsetProperty failed", ex);
+        if (PROPERTIES == null) {
+            LOG.error("unsetProperty failed, JCSMPPropertyMap._properties is not accessible");
+            return;
         }
+        ((Map<String, Object>) PROPERTIES.get(jcsmpProperties)).remove(key);
     }
 
     private void unsetTrustStore(JCSMPProperties jcsmpProperties) {
-        try {
-            Field isTrustStoreSetField = JCSMPPropertyMap.class.getDeclaredField("_isTrustStoreSet");
-            isTrustStoreSetField.setAccessible(true);
-            isTrustStoreSetField.set(jcsmpProperties, false);
-        } catch (Exception ex) {
-            LOG.error("unsetTrustStore failed", ex);
+        if (IS_TRUST_STORE_SET == null) {
+            LOG.error("unsetTrustStore failed, JCSMPPropertyMap._isTrustStoreSet is not accessible");
+            return;
         }
+        IS_TRUST_STORE_SET.set(jcsmpProperties, false);
+    }
+
+    /**
+     * @return Whether the JCSMPPropertyMap internals passed the self-test when this class was loaded.
+     */
+    static boolean canUnsetProperties() {
+        return PROPERTIES != null && IS_TRUST_STORE_SET != null;
     }
 
+    private static VarHandle resolve(String name, Class<?> expectedType) {
+        try {
+            final VarHandle handle = MethodHandles.privateLookupIn(JCSMPPropertyMap.class, MethodHandles.lookup())
+                    .unreflectVarHandle(JCSMPPropertyMap.class.getDeclaredField(name));
+            // self-test on an empty map, so an incompatible JCSMP version shows at startup
+            handle.get(new JCSMPProperties());
+            if (!expectedType.isAssignableFrom(MethodType.methodType(handle.varType()).wrap().returnType())) {
+                LOG.warn("JCSMPPropertyMap.{} is no {}, empty SSL_KEY_STORE and SSL_TRUST_STORE can not be unset", name, expectedType.getSimpleName());
+                return null;
+            }
+            return handle;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn("JCSMPPropertyMap.{} is not accessible, empty SSL_KEY_STORE and SSL_TRUST_STORE can not be unset", name, e);
+            return null;
+        }
+    }
 
 }
@@ -3,12 +3,33 @@ package community.solace.spring.boot.starter.solaceclientconfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPrivateKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECParameterSpec;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Checks whether a private key belongs to a public key. RSA and EdDSA keys are compared by their public
+ * components, EC keys by the public key embedded in their SEC1 encoding. All other keys, EC keys without an
+ * embedded public key, and keys that do not expose their components like HSM keys, are checked by signing
+ * and verifying.
+ */
 public class KeyPairChecker {
     private static final Logger LOG = LoggerFactory.getLogger(KeyPairChecker.class);
 
@@ -16,9 +37,14 @@ public class KeyPairChecker {
     private static final Map<String, String> SIGNATURE_ALGORITHMS = Map.of(
             "DSA", "SHA256WithDSA",
             "RSA", "SHA256WithRSA",
-            "EC", "SHA256WithECDSA"
+            "EC", "SHA256WithECDSA",
+            "EdDSA", "EdDSA"
     );
 
+    private enum Match {
+        YES, NO, UNKNOWN
+    }
+
     public static boolean isKeyPair(PrivateKey privateKey, PublicKey publicKey) {
         if (privateKey == null || publicKey == null) {
             return false;
@@ -29,14 +55,152 @@ public class KeyPairChecker {
         }
 
         try {
-            var signature = Signature.getInstance(SIGNATURE_ALGORITHMS.get(privateKey.getAlgorithm()));
-            signature.initSign(privateKey);
-            var signed = signature.sign();
-            signature.initVerify(publicKey);
-            return signature.verify(signed);
+            final Match match = matchPublicComponents(privateKey, publicKey);
+            if (match != Match.UNKNOWN) {
+                return match == Match.YES;
+            }
+            return signAndVerify(privateKey, publicKey);
         } catch (Exception e) {
             LOG.error("Unable to check key pair", e);
             return false;
         }
     }
+
+    private static Match matchPublicComponents(PrivateKey privateKey, PublicKey publicKey) throws Exception {
+        if (privateKey instanceof RSAPrivateKey && publicKey instanceof RSAPublicKey) {
+            return matchRsa((RSAPrivateKey) privateKey, (RSAPublicKey) publicKey);
+        }
+        if (privateKey instanceof ECPrivateKey && publicKey instanceof ECPublicKey) {
+            return matchEc((ECPrivateKey) privateKey, (ECPublicKey) publicKey);
+        }
+        if (privateKey instanceof EdECPrivateKey && publicKey instanceof EdECPublicKey) {
+            return matchEdDsa((EdECPrivateKey) privateKey, publicKey);
+        }
+        return Match.UNKNOWN;
+    }
+
+    private static boolean signAndVerify(PrivateKey privateKey, PublicKey publicKey) throws Exception {
+        var signature = Signature.getInstance(SIGNATURE_ALGORITHMS.get(privateKey.getAlgorithm()));
+        signature.initSign(privateKey);
+        var signed = signature.sign();
+        signature.initVerify(publicKey);
+        return signature.verify(signed);
+    }
+
+    private static Match matchRsa(RSAPrivateKey privateKey, RSAPublicKey publicKey) {
+        if (privateKey.getModulus() == null || !privateKey.getModulus().equals(publicKey.getModulus())) {
+            return privateKey.getModulus() == null ? Match.UNKNOWN : Match.NO;
+        }
+        if (privateKey instanceof RSAPrivateCrtKey) {
+            // a modulus has exactly one private exponent per public exponent
+            final BigInteger publicExponent = ((RSAPrivateCrtKey) privateKey).getPublicExponent();
+            return publicExponent.equals(publicKey.getPublicExponent()) ? Match.YES : Match.NO;
+        }
+        // without CRT components the public exponent is unknown
+        return Match.UNKNOWN;
+    }
+
+    private static Match matchEc(ECPrivateKey privateKey, ECPublicKey publicKey) {
+        if (privateKey.getParams() != null && !sameCurve(privateKey.getParams(), publicKey.getParams())) {
+            return Match.NO;
+        }
+        final byte[] embeddedPublicKey = embeddedPublicKey(privateKey);
+        // a compressed point can not be compared with the uncompressed point of the public key encoding
+        if (embeddedPublicKey == null || embeddedPublicKey.length < 2 || embeddedPublicKey[1] != 0x04) {
+            return Match.UNKNOWN;
+        }
+        final byte[] subjectPublicKey = subjectPublicKey(publicKey);
+        if (subjectPublicKey == null) {
+            return Match.UNKNOWN;
+        }
+        return Arrays.equals(embeddedPublicKey, subjectPublicKey) ? Match.YES : Match.NO;
+    }
+
+    private static boolean sameCurve(ECParameterSpec a, ECParameterSpec b) {
+        return b != null
+                && a.getCurve().equals(b.getCurve())
+                && a.getGenerator().equals(b.getGenerator())
+                && a.getOrder().equals(b.getOrder())
+                && a.getCofactor() == b.getCofactor();
+    }
+
+    /**
+     * Returns the optional <code>publicKey [1] BIT STRING</code> of the SEC1 <code>ECPrivateKey</code> within
+     * the PKCS#8 encoding, as written by OpenSSL, or <code>null</code> if it is absent.
+     */
+    private static byte[] embeddedPublicKey(ECPrivateKey privateKey) {
+        final byte[] encoded = "PKCS#8".equals(privateKey.getFormat()) ? privateKey.getEncoded() : null;
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            final List<DerCodec.Element> fields = DerCodec.read(encoded).getChildren();
+            if (fields.size() < 3 || fields.get(2).getTag() != DerCodec.OCTET_STRING) {
+                return null;
+            }
+            for (DerCodec.Element element : DerCodec.read(fields.get(2).getContent()).getChildren()) {
+                if (element.getTag() == DerCodec.CONTEXT_1) {
+                    final DerCodec.Element bitString = DerCodec.read(element.getContent());
+                    return bitString.getTag() == DerCodec.BIT_STRING ? bitString.getContent() : null;
+                }
+            }
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the <code>subjectPublicKey BIT STRING</code> of the X.509 encoding of the public key.
+     */
+    private static byte[] subjectPublicKey(ECPublicKey publicKey) {
+        final byte[] encoded = "X.509".equals(publicKey.getFormat()) ? publicKey.getEncoded() : null;
+        if (encoded == null) {
+            return null;
+        }
+        try {
+            final List<DerCodec.Element> fields = DerCodec.read(encoded).getChildren();
+            if (fields.size() != 2 || fields.get(1).getTag() != DerCodec.BIT_STRING) {
+                return null;
+            }
+            return fields.get(1).getContent();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Match matchEdDsa(EdECPrivateKey privateKey, PublicKey publicKey) {
+        final byte[] privateBytes = privateKey.getBytes().orElse(null);
+        if (privateBytes == null) {
+            return Match.UNKNOWN;
+        }
+        try {
+            // key generation hashes the random private bytes into the public key, so feeding them back derives it
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance(privateKey.getParams().getName());
+            generator.initialize(privateKey.getParams(), new FixedBytesRandom(privateBytes));
+            final KeyPair derived = generator.generateKeyPair();
+            // a provider not drawing the private bytes from the random derives an unrelated key, so only a
+            // match is conclusive
+            return Arrays.equals(derived.getPublic().getEncoded(), publicKey.getEncoded()) ? Match.YES : Match.UNKNOWN;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            LOG.debug("Unable to derive the EdDSA public key, falling back to sign and verify", e);
+            return Match.UNKNOWN;
+        }
+    }
+
+    private static final class FixedBytesRandom extends SecureRandom {
+        private final byte[] bytes;
+
+        private FixedBytesRandom(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void nextBytes(byte[] result) {
+            if (result.length != bytes.length) {
+                throw new IllegalStateException("Unexpected private key length " + result.length);
+            }
+            System.arraycopy(bytes, 0, result, 0, bytes.length);
+        }
+    }
 }
@@ -0,0 +1,256 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.KeyStoreSpi;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the keystores built from PEM text, keyed by a SHA-256 of the PEM inputs. Every context refresh, test
+ * context and binder environment asks for the same keystores, so they are built once and shared as read-only
+ * instances. Entries are held weakly and vanish once no {@link com.solacesystems.jcsmp.JCSMPProperties} refers
+ * to them anymore.
+ */
+final class KeyStoreCache {
+
+    /**
+     * The cache shared by all application contexts of the process.
+     */
+    static final KeyStoreCache SHARED = new KeyStoreCache();
+
+    private final ConcurrentHashMap<String, CachedKeyStore> keyStores = new ConcurrentHashMap<>();
+    private final ReferenceQueue<KeyStore> collected = new ReferenceQueue<>();
+
+    /**
+     * Returns the cached keystore of the PEM inputs, or builds it. Concurrent callers of the same inputs wait for
+     * a single build. A failed build, returning <code>null</code>, is not cached.
+     *
+     * @param kind    The property the keystore is built for, like <code>SSL_TRUST_CERT</code>.
+     * @param builder Builds the keystore of the inputs.
+     * @param pems    The PEM inputs of the builder.
+     * @return The read-only keystore, or <code>null</code> if it could not be built.
+     */
+    KeyStore get(String kind, Supplier<KeyStore> builder, String... pems) {
+        expungeCollected();
+        final KeyStore[] result = new KeyStore[1];
+        keyStores.compute(digest(kind, pems), (key, cached) -> {
+            result[0] = cached != null ? cached.get() : null;
+            if (result[0] != null) {
+                return cached;
+            }
+            final KeyStore built = builder.get();
+            if (built == null) {
+                return null;
+            }
+            result[0] = readOnly(built);
+            return new CachedKeyStore(key, result[0], collected);
+        });
+        return result[0];
+    }
+
+    /**
+     * @return The number of entries, including those not expunged yet.
+     */
+    int size() {
+        return keyStores.size();
+    }
+
+    private void expungeCollected() {
+        for (CachedKeyStore cached = (CachedKeyStore) collected.poll(); cached != null; cached = (CachedKeyStore) collected.poll()) {
+            keyStores.remove(cached.key, cached);
+        }
+    }
+
+    private static String digest(String kind, String... pems) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(kind.getBytes(StandardCharsets.UTF_8));
+            for (String pem : pems) {
+                digest.update((byte) 0);
+                if (pem != null) {
+                    digest.update(pem.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static KeyStore readOnly(KeyStore keyStore) {
+        final ReadOnlyKeyStoreSpi spi = new ReadOnlyKeyStoreSpi(keyStore);
+        final KeyStore readOnly = new KeyStore(spi, keyStore.getProvider(), keyStore.getType()) {
+        };
+        try {
+            readOnly.load(null, null);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not initialize read-only keystore", e);
+        }
+        spi.loaded = true;
+        return readOnly;
+    }
+
+    private static final class CachedKeyStore extends WeakReference<KeyStore> {
+        private final String key;
+
+        private CachedKeyStore(String key, KeyStore keyStore, ReferenceQueue<KeyStore> queue) {
+            super(keyStore, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Delegates all reads to the built keystore and rejects any modification, so one context cannot change the
+     * keystore of another.
+     */
+    private static final class ReadOnlyKeyStoreSpi extends KeyStoreSpi {
+        private final KeyStore delegate;
+        private boolean loaded;
+
+        private ReadOnlyKeyStoreSpi(KeyStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Key engineGetKey(String alias, char[] password) throws NoSuchAlgorithmException, UnrecoverableKeyException {
+            try {
+                return delegate.getKey(alias, password);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Certificate[] engineGetCertificateChain(String alias) {
+            try {
+                return delegate.getCertificateChain(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Certificate engineGetCertificate(String alias) {
+            try {
+                return delegate.getCertificate(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Date engineGetCreationDate(String alias) {
+            try {
+                return delegate.getCreationDate(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain) throws KeyStoreException {
+            throw new KeyStoreException("Shared keystore is read-only");
+        }
+
+        @Override
+        public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+            throw new KeyStoreException("Shared keystore is read-only");
+        }
+
+        @Override
+        public void engineSetCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+            throw new KeyStoreException("Shared keystore is read-only");
+        }
+
+        @Override
+        public void engineDeleteEntry(String alias) throws KeyStoreException {
+            throw new KeyStoreException("Shared keystore is read-only");
+        }
+
+        @Override
+        public Enumeration<String> engineAliases() {
+            try {
+                return delegate.aliases();
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean engineContainsAlias(String alias) {
+            try {
+                return delegate.containsAlias(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int engineSize() {
+            try {
+                return delegate.size();
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean engineIsKeyEntry(String alias) {
+            try {
+                return delegate.isKeyEntry(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean engineIsCertificateEntry(String alias) {
+            try {
+                return delegate.isCertificateEntry(alias);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String engineGetCertificateAlias(Certificate cert) {
+            try {
+                return delegate.getCertificateAlias(cert);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void engineStore(OutputStream stream, char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+            try {
+                delegate.store(stream, password);
+            } catch (KeyStoreException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void engineLoad(InputStream stream, char[] password) throws IOException {
+            if (loaded) {
+                throw new IOException("Shared keystore is read-only");
+            }
+        }
+    }
+}
@@ -3,13 +3,22 @@ package community.solace.spring.boot.starter.solaceclientconfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.security.KeyStore;
+import java.security.KeyStoreException;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import javax.security.auth.x500.X500Principal;
 
 final class KeyStoreFactory {
 
@@ -17,12 +26,27 @@ final class KeyStoreFactory {
     private static final Logger LOG = LoggerFactory.getLogger(KeyStoreFactory.class);
 
     private final PemFormatTransformer pemFormatTransformer;
+    private final KeyStoreCache keyStoreCache;
+    private final SslTrustStoreProperties trustStoreProperties;
 
     KeyStoreFactory(final PemFormatTransformer pemFormatTransformer) {
+        this(pemFormatTransformer, new KeyStoreCache(), new SslTrustStoreProperties());
+    }
+
+    KeyStoreFactory(final PemFormatTransformer pemFormatTransformer, final KeyStoreCache keyStoreCache, final SslTrustStoreProperties trustStoreProperties) {
         this.pemFormatTransformer = pemFormatTransformer;
+        this.keyStoreCache = keyStoreCache;
+        this.trustStoreProperties = trustStoreProperties;
     }
 
+    /**
+     * @return The read-only client keystore of the key and certificates, shared with all callers passing the same PEM.
+     */
     KeyStore createClientKeyStore(final String privateKeyPem, final String clientCertPem) {
+        return keyStoreCache.get("SSL_CLIENT_CERT", () -> buildClientKeyStore(privateKeyPem, clientCertPem), privateKeyPem, clientCertPem);
+    }
+
+    private KeyStore buildClientKeyStore(final String privateKeyPem, final String clientCertPem) {
         try {
             final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
             keyStore.load(null, null);
@@ -35,12 +59,13 @@ final class KeyStoreFactory {
                 return null;
             }
 
-            if (!privateKeyMatchesCertificate(privateKey, certificates)) {
+            final Certificate[] chain = buildChain(privateKey, certificates);
+            if (chain == null) {
                 LOG.error("Non of the given certificates in SSL_CLIENT_CERT matches the give key SSL_PRIVATE_KEY");
                 return null;
             }
 
-            keyStore.setKeyEntry("pk", privateKey, INTERNAL_PASSWORD.toCharArray(), certificates);
+            keyStore.setKeyEntry("pk", privateKey, INTERNAL_PASSWORD.toCharArray(), chain);
 
             return keyStore;
         } catch (Exception exception) {
@@ -49,20 +74,66 @@ final class KeyStoreFactory {
         }
     }
 
-    private boolean privateKeyMatchesCertificate(PrivateKey privateKey, Certificate[] certificates) {
-        if (certificates.length < 1) {
-            return false;
+    /**
+     * Orders the certificates into the chain of the certificate matching the private key, followed by its
+     * issuers. The certificates are indexed by subject once, so the chain is built in linear time regardless
+     * of their order. Certificates not part of the chain are dropped.
+     *
+     * @return The chain starting with the certificate of the key, or <code>null</code> if none matches.
+     */
+    private Certificate[] buildChain(PrivateKey privateKey, Certificate[] certificates) {
+        X509Certificate leaf = null;
+        final Map<X500Principal, X509Certificate> bySubject = new HashMap<>();
+        for (Certificate certificate : certificates) {
+            if (!(certificate instanceof X509Certificate)) {
+                LOG.warn("Ignoring {} certificate in SSL_CLIENT_CERT", certificate.getType());
+                continue;
+            }
+            final X509Certificate x509Certificate = (X509Certificate) certificate;
+            if (leaf == null && KeyPairChecker.isKeyPair(privateKey, x509Certificate.getPublicKey())) {
+                leaf = x509Certificate;
+            } else if (x509Certificate.getSubjectX500Principal() != null) {
+                bySubject.putIfAbsent(x509Certificate.getSubjectX500Principal(), x509Certificate);
+            }
+        }
+        if (leaf == null) {
+            return null;
         }
 
-        // The first cert in the chain has to match key, all others are only the trust chain.
-        return KeyPairChecker.isKeyPair(privateKey, certificates[0].getPublicKey());
+        final List<Certificate> chain = new ArrayList<>();
+        chain.add(leaf);
+        X509Certificate current = leaf;
+        while (current.getIssuerX500Principal() != null && !current.getIssuerX500Principal().equals(current.getSubjectX500Principal())) {
+            // removing the issuer also stops cycles of cross-signed certificates
+            current = bySubject.remove(current.getIssuerX500Principal());
+            if (current == null) {
+                break;
+            }
+            chain.add(current);
+        }
+        if (chain.size() < certificates.length) {
+            LOG.info("Dropped {} certificates of SSL_CLIENT_CERT not belonging to the chain of {}",
+                    certificates.length - chain.size(), leaf.getSubjectX500Principal());
+        }
+        return chain.toArray(new Certificate[0]);
     }
 
     String getClientKeyStorePassword() {
         return INTERNAL_PASSWORD;
     }
 
+    /**
+     * @return The read-only trust store of the certificates, shared with all callers passing the same PEM. In merge
+     * mode it also contains the trust anchors of the JVM.
+     */
     KeyStore createTrustStore(final String trustCertificatesPem) {
+        final boolean caCertificatesOnly = trustStoreProperties.isCaCertificatesOnly();
+        final boolean mergeJvmTrustStore = trustStoreProperties.isMergeJvmTrustStore();
+        return keyStoreCache.get("SSL_TRUST_CERT" + (caCertificatesOnly ? " CA" : "") + (mergeJvmTrustStore ? " JVM" : ""),
+                () -> buildTrustStore(trustCertificatesPem, caCertificatesOnly, mergeJvmTrustStore), trustCertificatesPem);
+    }
+
+    private KeyStore buildTrustStore(final String trustCertificatesPem, final boolean caCertificatesOnly, final boolean mergeJvmTrustStore) {
         try {
             final Certificate[] certificates = pemFormatTransformer.getCertificates(trustCertificatesPem, "SSL_TRUST_CERT");
             if (certificates == null) {
@@ -70,8 +141,27 @@ final class KeyStoreFactory {
             }
             final KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
             trustStore.load(null, null);
-            for (int i = 0; i < certificates.length; i++) {
-                trustStore.setCertificateEntry("ts" + i, certificates[i]);
+            final Set<Certificate> added = new HashSet<>();
+            int aliases = 0;
+            for (Certificate certificate : certificates) {
+                if (caCertificatesOnly && !isCaCertificate(certificate)) {
+                    continue;
+                }
+                trustStore.setCertificateEntry("ts" + aliases++, certificate);
+                added.add(certificate);
+            }
+            if (aliases < certificates.length) {
+                LOG.info("Left out {} certificates of SSL_TRUST_CERT not being CA certificates", certificates.length - aliases);
+            }
+            if (mergeJvmTrustStore) {
+                // the JVM anchors are layered below the PEM certificates, skipping those supplied by both
+                int merged = 0;
+                for (X509Certificate certificate : JvmTrustAnchors.CERTIFICATES) {
+                    if (!added.contains(certificate)) {
+                        trustStore.setCertificateEntry("jvm" + merged++, certificate);
+                    }
+                }
+                LOG.debug("Merged {} trust anchors of the JVM into the SSL_TRUST_CERT trust store", merged);
             }
             return trustStore;
         } catch (Exception e) {
@@ -80,14 +170,47 @@ final class KeyStoreFactory {
         }
     }
 
-    public Instant getValidTo(String clientCertPem) {
+    /**
+     * The default trust anchors of the JVM, honoring <code>javax.net.ssl.trustStore</code>. They are loaded on the
+     * first use of the merge mode only.
+     */
+    private static final class JvmTrustAnchors {
+        private static final X509Certificate[] CERTIFICATES = load();
+
+        private static X509Certificate[] load() {
+            try {
+                final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                trustManagerFactory.init((KeyStore) null);
+                for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+                    if (trustManager instanceof X509TrustManager) {
+                        return ((X509TrustManager) trustManager).getAcceptedIssuers();
+                    }
+                }
+                LOG.warn("The JVM provides no X509TrustManager, SSL_TRUST_CERT is not merged with its trust anchors");
+            } catch (Exception e) {
+                LOG.warn("Could not load the trust anchors of the JVM, SSL_TRUST_CERT is not merged with them", e);
+            }
+            return new X509Certificate[0];
+        }
+    }
+
+    private static boolean isCaCertificate(final Certificate certificate) {
+        // the path length constraint is -1 for end entity certificates without basic constraints CA:true
+        return certificate instanceof X509Certificate && ((X509Certificate) certificate).getBasicConstraints() >= 0;
+    }
+
+    /**
+     * @return The expiration of the certificate matching the key of the client keystore, wherever it was placed in
+     * SSL_CLIENT_CERT, or <code>null</code> if the keystore has no such certificate.
+     */
+    public Instant getValidTo(final KeyStore clientKeyStore) {
         try {
-            final Certificate[] certificates = pemFormatTransformer.getCertificates(clientCertPem, "SSL_CLIENT_CERT");
-            if (certificates == null) {
+            final Certificate certificate = clientKeyStore.getCertificate("pk");
+            if (!(certificate instanceof X509Certificate)) {
                 return null;
             }
-            return ((X509Certificate) certificates[0]).getNotAfter().toInstant();
-        } catch (CertificateException | IOException e) {
+            return ((X509Certificate) certificate).getNotAfter().toInstant();
+        } catch (KeyStoreException e) {
             LOG.error("Unable to extract notAfter date from certificate", e);
             return null;
         }
@@ -7,16 +7,19 @@ import org.springframework.util.StringUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.spec.PKCS8EncodedKeySpec;
-import java.util.Base64;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * This class creates certificates and private keys out of PEM strings.
@@ -24,75 +27,166 @@ import static java.nio.charset.StandardCharsets.ISO_8859_1;
 final class PemFormatTransformer {
 
     private static final Logger LOG = LoggerFactory.getLogger(PemFormatTransformer.class);
-    private static final Pattern PEM_FORMAT = Pattern.compile(
-            "^\\s*-----BEGIN (RSA PRIVATE KEY|PRIVATE KEY)-----\\s*(" +
-                    "([0-9a-zA-Z+/=]{64}\\s*)*" + "([0-9a-zA-Z+/=]{1,63}\\s*)?" +
-                    ")-----END (RSA PRIVATE KEY|PRIVATE KEY)-----\\s*$"
+    private static final String EC_PARAMETERS = "EC PARAMETERS";
+    private static final Set<String> KEY_LABELS = Set.of(
+            PemReader.PRIVATE_KEY, PemReader.RSA_PRIVATE_KEY, PemReader.EC_PRIVATE_KEY);
+    private static final Map<String, String> KEY_ALGORITHMS = Map.of(
+            "1.2.840.113549.1.1.1", "RSA",
+            "1.2.840.113549.1.1.10", "RSASSA-PSS",
+            "1.2.840.10045.2.1", "EC",
+            "1.2.840.10040.4.1", "DSA",
+            "1.3.101.112", "Ed25519",
+            "1.3.101.113", "Ed448"
     );
+    // DER encoded parts of the PKCS#8 wrapping of PKCS#1 and SEC1 keys
+    private static final byte[] VERSION_0 = {DerCodec.INTEGER, 0x01, 0x00};
+    private static final byte[] DER_NULL = {DerCodec.NULL, 0x00};
+    private static final byte[] RSA_ENCRYPTION = {DerCodec.OBJECT_IDENTIFIER, 0x09,
+            0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x0d, 0x01, 0x01, 0x01};
+    private static final byte[] EC_PUBLIC_KEY = {DerCodec.OBJECT_IDENTIFIER, 0x07,
+            0x2a, (byte) 0x86, 0x48, (byte) 0xce, 0x3d, 0x02, 0x01};
+    // bundles with fewer certificates are decoded on the calling thread
+    private static final int PARALLEL_THRESHOLD = 32;
 
+    /**
+     * Decodes the certificates of a PEM bundle. Repeated certificates are decoded once, identified by the
+     * SHA-256 fingerprint of their DER encoding. Large bundles, like corporate CA bundles, are decoded in
+     * parallel on the common {@link ForkJoinPool}.
+     *
+     * @return The distinct certificates in the order of the bundle, or <code>null</code> if one is invalid.
+     */
     Certificate[] getCertificates(final String pem, final String certificateType) throws CertificateException, IOException {
-        final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-        try (final ByteArrayInputStream is = new ByteArrayInputStream(cleanWhiteSpace(pem).getBytes(ISO_8859_1))) {
-            return certificateFactory.generateCertificates(is).toArray(new Certificate[0]);
+        try {
+            final Map<String, byte[]> encodings = new LinkedHashMap<>();
+            final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            final PemReader reader = new PemReader(pem);
+            for (PemReader.Block block = reader.next(); block != null; block = reader.next()) {
+                if (PemReader.CERTIFICATE.equals(block.getLabel())) {
+                    encodings.putIfAbsent(HexFormat.of().formatHex(sha256.digest(block.getContent())), block.getContent());
+                }
+            }
+            final byte[][] ders = encodings.values().toArray(new byte[0][]);
+            final Certificate[] certificates = new Certificate[ders.length];
+            if (ders.length < PARALLEL_THRESHOLD) {
+                decode(ders, certificates, 0, ders.length);
+            } else {
+                ForkJoinPool.commonPool().invoke(new DecodeTask(ders, certificates, 0, ders.length));
+            }
+            return certificates;
         } catch (Exception exception) {
             LOG.warn("Could not parse {} {} pem={}...",certificateType, exception.getMessage(), pem.substring(0, Math.min(10, pem.length() - 1)), exception);
             return null;
         }
     }
 
-    /**
-     * Normally pem allows any kind of space (\r\n|\n|\r|\t| ) between chunks, but java only accept \n.
-     *
-     * @param pem that is possible not java but standard compatible.
-     * @return cleaned pem string
-     */
-    private static String cleanWhiteSpace(String pem) {
-        String[] certs = pem.split("-----BEGIN CERTIFICATE-----");
-
-        StringBuilder cleanedPem = new StringBuilder();
-        for (String cert : certs) {
-            cert = cert.replace("-----BEGIN CERTIFICATE-----", "").replace("-----END CERTIFICATE-----", "").trim();
-
-            if (StringUtils.hasText(cert)) {
-                String[] lines = cert.split("\\s+");
-
-                cleanedPem.append("-----BEGIN CERTIFICATE-----\n");
-
-                for (String line : lines) {
-                    line = line.trim();
+    private static void decode(final byte[][] ders, final Certificate[] certificates, final int from, final int to) {
+        try {
+            // a factory per task, certificate factories are not specified to be thread safe
+            final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            for (int i = from; i < to; i++) {
+                certificates[i] = certificateFactory.generateCertificate(new ByteArrayInputStream(ders[i]));
+            }
+        } catch (CertificateException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
 
-                    if (StringUtils.hasText(line)) {
-                        cleanedPem.append(line);
-                        cleanedPem.append("\n");
-                    }
-                }
+    private static final class DecodeTask extends RecursiveAction {
+        private final byte[][] ders;
+        private final Certificate[] certificates;
+        private final int from;
+        private final int to;
+
+        private DecodeTask(final byte[][] ders, final Certificate[] certificates, final int from, final int to) {
+            this.ders = ders;
+            this.certificates = certificates;
+            this.from = from;
+            this.to = to;
+        }
 
-                cleanedPem.append("-----END CERTIFICATE-----\n");
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                decode(ders, certificates, from, to);
+                return;
             }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new DecodeTask(ders, certificates, from, middle), new DecodeTask(ders, certificates, middle, to));
         }
-
-        return cleanedPem.toString();
     }
 
     PrivateKey getPrivateKey(final String pem) {
         try {
-            byte[] encodedKey = decodePemKey(pem);
-            if (encodedKey == null) {
+            final PemReader.Block block = readKeyBlock(pem);
+            if (block == null) {
                 return null;
             }
-            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+            final byte[] encodedKey = toPkcs8(block);
+            return KeyFactory.getInstance(keyAlgorithm(encodedKey)).generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
         } catch (Exception e) {
             LOG.warn("Could not parse SSL_PRIVATE_KEY {} pem={}...", e.getMessage(), StringUtils.truncate(pem, 10), e);
             return null;
         }
     }
 
-    private byte[] decodePemKey(final String pem) {
-        final Matcher matcher = PEM_FORMAT.matcher(pem);
-        if (!matcher.matches()) {
+    private PemReader.Block readKeyBlock(final String pem) {
+        final PemReader reader = new PemReader(pem);
+        PemReader.Block keyBlock = null;
+        for (PemReader.Block block = reader.next(); block != null; block = reader.next()) {
+            if (EC_PARAMETERS.equals(block.getLabel())) {
+                // written by openssl ecparam in front of the key, the key repeats the curve
+                continue;
+            }
+            if (keyBlock != null || !KEY_LABELS.contains(block.getLabel())) {
+                keyBlock = null;
+                break;
+            }
+            keyBlock = block;
+        }
+        if (keyBlock == null) {
             LOG.warn("Invalid PEM string SSL_PRIVATE_KEY pem={}...", StringUtils.truncate(pem, 10));
-            return null;
         }
-        return Base64.getMimeDecoder().decode(matcher.group(2));
+        return keyBlock;
+    }
+
+    /**
+     * Wraps PKCS#1 RSA and SEC1 EC keys into a PKCS#8 PrivateKeyInfo, which the key factories accept.
+     */
+    private static byte[] toPkcs8(final PemReader.Block block) {
+        if (PemReader.RSA_PRIVATE_KEY.equals(block.getLabel())) {
+            return privateKeyInfo(DerCodec.encode(DerCodec.SEQUENCE, RSA_ENCRYPTION, DER_NULL), block.getContent());
+        }
+        if (PemReader.EC_PRIVATE_KEY.equals(block.getLabel())) {
+            return privateKeyInfo(DerCodec.encode(DerCodec.SEQUENCE, EC_PUBLIC_KEY, ecParameters(block.getContent())), block.getContent());
+        }
+        return block.getContent();
+    }
+
+    private static byte[] privateKeyInfo(final byte[] algorithmIdentifier, final byte[] privateKey) {
+        return DerCodec.encode(DerCodec.SEQUENCE, VERSION_0, algorithmIdentifier, DerCodec.encode(DerCodec.OCTET_STRING, privateKey));
+    }
+
+    private static byte[] ecParameters(final byte[] sec1Key) {
+        // ECPrivateKey ::= SEQUENCE { version, privateKey, [0] parameters OPTIONAL, [1] publicKey OPTIONAL }
+        for (DerCodec.Element element : DerCodec.read(sec1Key).getChildren()) {
+            if (element.getTag() == DerCodec.CONTEXT_0) {
+                return element.getContent();
+            }
+        }
+        throw new IllegalArgumentException("EC PRIVATE KEY without curve parameters");
+    }
+
+    private static String keyAlgorithm(final byte[] privateKeyInfo) {
+        // PrivateKeyInfo ::= SEQUENCE { version, AlgorithmIdentifier ::= SEQUENCE { algorithm, parameters }, privateKey }
+        final List<DerCodec.Element> fields = DerCodec.read(privateKeyInfo).getChildren();
+        if (fields.size() < 3 || fields.get(1).getTag() != DerCodec.SEQUENCE) {
+            throw new IllegalArgumentException("Invalid PKCS#8 private key");
+        }
+        final String oid = DerCodec.objectIdentifier(fields.get(1).getChildren().get(0));
+        final String algorithm = KEY_ALGORITHMS.get(oid);
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Unsupported private key algorithm " + oid);
+        }
+        return algorithm;
     }
 }
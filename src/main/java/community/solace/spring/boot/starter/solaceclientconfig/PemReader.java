@@ -0,0 +1,177 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import java.util.Arrays;
+
+/**
+ * Single pass reader of PEM text. The base64 content of a block is decoded while scanning, so the text is
+ * neither split nor copied and a bundle of many blocks is read in linear time. Any whitespace is accepted
+ * within and between the lines, text outside of the BEGIN/END boundaries is skipped.
+ */
+final class PemReader {
+
+    static final String CERTIFICATE = "CERTIFICATE";
+    static final String PRIVATE_KEY = "PRIVATE KEY";
+    static final String RSA_PRIVATE_KEY = "RSA PRIVATE KEY";
+    static final String EC_PRIVATE_KEY = "EC PRIVATE KEY";
+
+    private static final String BEGIN = "-----BEGIN ";
+    private static final String END = "-----END ";
+    private static final String DASHES = "-----";
+
+    private static final byte INVALID = -1;
+    private static final byte WHITESPACE = -2;
+    private static final byte PADDING = -3;
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, INVALID);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+        DECODE[' '] = WHITESPACE;
+        DECODE['\t'] = WHITESPACE;
+        DECODE['\n'] = WHITESPACE;
+        DECODE['\r'] = WHITESPACE;
+        DECODE['\f'] = WHITESPACE;
+        DECODE['='] = PADDING;
+    }
+
+    /**
+     * A decoded PEM block.
+     */
+    static final class Block {
+        private final String label;
+        private final byte[] content;
+
+        private Block(String label, byte[] content) {
+            this.label = label;
+            this.content = content;
+        }
+
+        /**
+         * @return The label of the block, like <code>CERTIFICATE</code> or <code>PRIVATE KEY</code>.
+         */
+        String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return The DER encoded content of the block.
+         */
+        byte[] getContent() {
+            return content;
+        }
+    }
+
+    private final CharSequence pem;
+    private int position;
+    private byte[] buffer = new byte[2048];
+
+    PemReader(CharSequence pem) {
+        this.pem = pem;
+    }
+
+    /**
+     * Reads the next block.
+     *
+     * @return The next block, or <code>null</code> if there is none.
+     * @throws IllegalArgumentException if the block is malformed.
+     */
+    Block next() {
+        final int begin = indexOf(BEGIN, position);
+        if (begin < 0) {
+            position = pem.length();
+            return null;
+        }
+        final int labelStart = begin + BEGIN.length();
+        final int labelEnd = indexOf(DASHES, labelStart);
+        if (labelEnd < 0) {
+            throw new IllegalArgumentException("Unterminated BEGIN line at " + begin);
+        }
+        final String label = pem.subSequence(labelStart, labelEnd).toString();
+        position = labelEnd + DASHES.length();
+        return new Block(label, decodeContent(label));
+    }
+
+    private byte[] decodeContent(String label) {
+        int length = 0;
+        int quantum = 0;
+        int sextets = 0;
+        int padding = 0;
+        for (int i = position; i < pem.length(); i++) {
+            final char c = pem.charAt(i);
+            final byte value = c < DECODE.length ? DECODE[c] : INVALID;
+            if (value >= 0) {
+                if (padding > 0) {
+                    throw new IllegalArgumentException("Base64 data after padding in " + label + " at " + i);
+                }
+                quantum = quantum << 6 | value;
+                if (++sextets == 4) {
+                    ensureCapacity(length + 3);
+                    buffer[length++] = (byte) (quantum >> 16);
+                    buffer[length++] = (byte) (quantum >> 8);
+                    buffer[length++] = (byte) quantum;
+                    quantum = 0;
+                    sextets = 0;
+                }
+            } else if (value == WHITESPACE) {
+                // line breaks and indentation
+            } else if (value == PADDING) {
+                padding++;
+            } else if (c == '-') {
+                if (!regionMatches(i, END) || !regionMatches(i + END.length(), label)
+                        || !regionMatches(i + END.length() + label.length(), DASHES)) {
+                    throw new IllegalArgumentException("Missing END line of " + label + " at " + i);
+                }
+                position = i + END.length() + label.length() + DASHES.length();
+                return finish(label, length, quantum, sextets, padding);
+            } else {
+                throw new IllegalArgumentException("Invalid character in " + label + " at " + i);
+            }
+        }
+        throw new IllegalArgumentException("Missing END line of " + label);
+    }
+
+    private byte[] finish(String label, int length, int quantum, int sextets, int padding) {
+        if (sextets == 2 && (padding == 0 || padding == 2)) {
+            ensureCapacity(length + 1);
+            buffer[length++] = (byte) (quantum >> 4);
+        } else if (sextets == 3 && padding <= 1) {
+            ensureCapacity(length + 2);
+            buffer[length++] = (byte) (quantum >> 10);
+            buffer[length++] = (byte) (quantum >> 2);
+        } else if (sextets != 0 || padding != 0) {
+            throw new IllegalArgumentException("Truncated base64 data in " + label);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    private int indexOf(String token, int from) {
+        final int last = pem.length() - token.length();
+        for (int i = from; i <= last; i++) {
+            if (pem.charAt(i) == token.charAt(0) && regionMatches(i, token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int offset, String token) {
+        if (offset + token.length() > pem.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (pem.charAt(offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
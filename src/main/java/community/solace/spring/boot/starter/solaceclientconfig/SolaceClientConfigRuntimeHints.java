@@ -0,0 +1,19 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import com.solacesystems.jcsmp.JCSMPPropertyMap;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Registers the JCSMP internals accessed by {@link JCSMPAuthenticationPropertiesPostProcessor} for reflection, so
+ * the authentication properties can be post processed in a native image.
+ */
+class SolaceClientConfigRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(JCSMPPropertyMap.class, type -> type
+                .withField("_properties")
+                .withField("_isTrustStoreSet"));
+    }
+}
@@ -2,6 +2,7 @@ package community.solace.spring.boot.starter.solaceclientconfig;
 
 import com.solacesystems.jcsmp.JCSMPChannelProperties;
 import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.SolaceDestinationCache;
 import com.solacesystems.jcsmp.SolaceSessionOAuth2TokenProvider;
 import com.solacesystems.jcsmp.SpringJCSMPFactory;
 import com.solacesystems.jcsmp.impl.JCSMPPropertiesExtension;
@@ -9,15 +10,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.lang.Nullable;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.security.KeyStore;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -29,9 +35,12 @@ import java.util.Set;
 @ConditionalOnMissingBean(SpringJCSMPFactory.class)
 @EnableConfigurationProperties({
         SolaceJavaProperties.class,
-        SslCertInfoProperties.class
+        SslCertInfoProperties.class,
+        SslReloadProperties.class,
+        SslTrustStoreProperties.class
 })
-@Import(SolaceOAuthClientConfiguration.class)
+@Import({SolaceOAuthClientConfiguration.class, SolacePayloadCodecConfiguration.class})
+@ImportRuntimeHints(SolaceClientConfigRuntimeHints.class)
 public class SolaceJavaAutoConfiguration {
 
     private SolaceJavaProperties properties;
@@ -49,7 +58,38 @@ public class SolaceJavaAutoConfiguration {
     @Bean
     public SpringJCSMPFactory getSpringJCSMPFactory(JCSMPProperties jcsmpProperties,
                                                     @Nullable SolaceSessionOAuth2TokenProvider solaceSessionOAuth2TokenProvider) {
-        return new SpringJCSMPFactory(jcsmpProperties, solaceSessionOAuth2TokenProvider);
+        return new SpringJCSMPFactory(jcsmpProperties, solaceSessionOAuth2TokenProvider,
+                new SolaceDestinationCache(properties.getDestinationCacheSize()));
+    }
+
+    /**
+     * Returns a {@link SslClientCertificateReloader} swapping a new client certificate and key from
+     * <code>SSL_CLIENT_CERT_FILE</code> and <code>SSL_PRIVATE_KEY_FILE</code> into the {@link SpringJCSMPFactory}.
+     *
+     * @return {@link SslClientCertificateReloader} polling the PEM files.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "solace.java.ssl-reload", name = "enabled", havingValue = "true")
+    SslClientCertificateReloader sslClientCertificateReloader(SpringJCSMPFactory springJCSMPFactory,
+                                                              JCSMPProperties jcsmpProperties,
+                                                              Optional<TaskScheduler> taskScheduler,
+                                                              SslReloadProperties sslReloadProperties,
+                                                              SslTrustStoreProperties sslTrustStoreProperties) {
+        final String privateKeyFile = properties.getStringProperty(JCSMPPropertiesExtension.SSL_PRIVATE_KEY_FILE);
+        final String clientCertFile = properties.getStringProperty(JCSMPPropertiesExtension.SSL_CLIENT_CERT_FILE);
+        if (!StringUtils.hasText(privateKeyFile) || !StringUtils.hasText(clientCertFile)) {
+            throw new IllegalStateException("solace.java.ssl-reload requires the api properties SSL_PRIVATE_KEY_FILE and SSL_CLIENT_CERT_FILE");
+        }
+        // the shared cache returns the startup keystore for unchanged files
+        final SslClientCertificateReloader reloader = new SslClientCertificateReloader(
+                new KeyStoreFactory(new PemFormatTransformer(), KeyStoreCache.SHARED, sslTrustStoreProperties), springJCSMPFactory,
+                (KeyStore) jcsmpProperties.getProperty(JCSMPProperties.SSL_IN_MEMORY_KEY_STORE), Path.of(privateKeyFile), Path.of(clientCertFile));
+        if (taskScheduler.isPresent()) {
+            reloader.start(taskScheduler.get(), sslReloadProperties.getInterval());
+        } else {
+            logger.warn("Cant reload the client certificate because taskScheduler is missing");
+        }
+        return reloader;
     }
 
     /**
@@ -62,7 +102,8 @@ public class SolaceJavaAutoConfiguration {
     @Bean
     public JCSMPProperties getJCSMPProperties(
             Optional<TaskScheduler> taskScheduler,
-            SslCertInfoProperties sslCertInfoProperties
+            SslCertInfoProperties sslCertInfoProperties,
+            SslTrustStoreProperties sslTrustStoreProperties
     ) {
         try {
             Class.forName("io.netty.channel.MultiThreadIoEventLoopGroup");
@@ -106,7 +147,7 @@ public class SolaceJavaAutoConfiguration {
 
 
         JCSMPAuthenticationPropertiesPostProcessor postProcessor = new JCSMPAuthenticationPropertiesPostProcessor(
-                new KeyStoreFactory(new PemFormatTransformer()),
+                new KeyStoreFactory(new PemFormatTransformer(), KeyStoreCache.SHARED, sslTrustStoreProperties),
                 taskScheduler.orElse(null),
                 sslCertInfoProperties
         );
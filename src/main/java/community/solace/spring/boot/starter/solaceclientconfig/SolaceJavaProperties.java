@@ -73,6 +73,11 @@ public class SolaceJavaProperties {
      */
     private int reconnectRetryWaitInMillis = 3000;
 
+    /**
+     * The maximum number of topics and of queues the SpringJCSMPFactory keeps in its destination cache.
+     */
+    private int destinationCacheSize = 10_000;
+
 
     /**
      * API properties can be set by the attribute naming convention used in
@@ -171,6 +176,14 @@ public class SolaceJavaProperties {
         this.reconnectRetryWaitInMillis = reconnectRetryWaitInMillis;
     }
 
+    public int getDestinationCacheSize() {
+        return destinationCacheSize;
+    }
+
+    public void setDestinationCacheSize(int destinationCacheSize) {
+        this.destinationCacheSize = destinationCacheSize;
+    }
+
     public Map<String,String> getApiProperties() {
         return apiProperties;
     }
@@ -0,0 +1,63 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import com.google.protobuf.MessageLite;
+import com.solacesystems.jcsmp.JacksonPayloadCodec;
+import com.solacesystems.jcsmp.ProtobufPayloadCodec;
+import com.solacesystems.jcsmp.RawBytesPayloadCodec;
+import com.solacesystems.jcsmp.SolacePayloadCodec;
+import com.solacesystems.jcsmp.SolacePayloadCodecs;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Configuration of the {@link SolacePayloadCodec}s. The raw byte codec is always present, the Protobuf and
+ * Jackson codecs only when their libraries are on the classpath. {@link SolacePayloadCodecs} asks the codecs
+ * in bean order, Jackson is asked last as it accepts any type.
+ */
+@Configuration
+public class SolacePayloadCodecConfiguration {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnMissingBean
+    public RawBytesPayloadCodec rawBytesPayloadCodec() {
+        return new RawBytesPayloadCodec();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SolacePayloadCodecs solacePayloadCodecs(ObjectProvider<SolacePayloadCodec> codecs) {
+        return new SolacePayloadCodecs(codecs.orderedStream().toList());
+    }
+
+    @Configuration
+    @ConditionalOnClass(MessageLite.class)
+    static class ProtobufPayloadCodecConfiguration {
+
+        @Bean
+        @Order(0)
+        @ConditionalOnMissingBean
+        public ProtobufPayloadCodec protobufPayloadCodec() {
+            return new ProtobufPayloadCodec();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(ObjectMapper.class)
+    static class JacksonPayloadCodecConfiguration {
+
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        @ConditionalOnMissingBean
+        public JacksonPayloadCodec jacksonPayloadCodec(ObjectProvider<ObjectMapper> objectMapper) {
+            return new JacksonPayloadCodec(objectMapper.getIfAvailable(() -> JsonMapper.builder().build()));
+        }
+    }
+}
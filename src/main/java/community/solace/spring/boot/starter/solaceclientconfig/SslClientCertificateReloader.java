@@ -0,0 +1,96 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+import static com.solacesystems.jcsmp.JCSMPProperties.SSL_IN_MEMORY_KEY_STORE;
+import static com.solacesystems.jcsmp.JCSMPProperties.SSL_KEY_STORE_PASSWORD;
+
+/**
+ * Polls the PEM files of the client certificate and private key and swaps a rebuilt keystore into the
+ * {@link SpringJCSMPFactory} when their content changes. The {@link KeyStoreFactory} caches keystores by a hash of
+ * their PEM, so files with the content of the applied keystore yield that very keystore. Comparing the content,
+ * rather than watching the directory, also catches the symlink swaps of mounted Kubernetes secrets and ignores
+ * touched but unchanged files.
+ */
+final class SslClientCertificateReloader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SslClientCertificateReloader.class);
+
+    private final KeyStoreFactory keyStoreFactory;
+    private final SpringJCSMPFactory springJCSMPFactory;
+    private final Path privateKeyFile;
+    private final Path clientCertFile;
+    private KeyStore appliedKeyStore;
+    private ScheduledFuture<?> pollTask;
+
+    /**
+     * @param startupKeyStore The keystore built at startup, so files changed since are applied with the first check.
+     */
+    SslClientCertificateReloader(KeyStoreFactory keyStoreFactory, SpringJCSMPFactory springJCSMPFactory, KeyStore startupKeyStore,
+                                 Path privateKeyFile, Path clientCertFile) {
+        this.keyStoreFactory = keyStoreFactory;
+        this.springJCSMPFactory = springJCSMPFactory;
+        this.appliedKeyStore = startupKeyStore;
+        this.privateKeyFile = privateKeyFile;
+        this.clientCertFile = clientCertFile;
+    }
+
+    void start(TaskScheduler taskScheduler, Duration interval) {
+        pollTask = taskScheduler.scheduleWithFixedDelay(this::reloadIfChanged, interval);
+        LOG.info("Checking {} and {} for a new client certificate every {}", privateKeyFile, clientCertFile, interval);
+    }
+
+    /**
+     * Rebuilds the client keystore if the files changed since the last applied keystore. An invalid key or
+     * certificate, e.g. while only one of the files was replaced yet, keeps the current keystore and is tried
+     * again with the next check.
+     */
+    void reloadIfChanged() {
+        final String privateKeyPem;
+        final String clientCertPem;
+        try {
+            privateKeyPem = Files.readString(privateKeyFile);
+            clientCertPem = Files.readString(clientCertFile);
+        } catch (IOException e) {
+            LOG.warn("Could not read SSL_PRIVATE_KEY_FILE {} or SSL_CLIENT_CERT_FILE {}, keeping the current client certificate", privateKeyFile, clientCertFile, e);
+            return;
+        }
+        final KeyStore keyStore = keyStoreFactory.createClientKeyStore(privateKeyPem, clientCertPem);
+        if (keyStore == null) {
+            LOG.error("Could not create a keystore of SSL_PRIVATE_KEY_FILE and SSL_CLIENT_CERT_FILE, keeping the current client certificate");
+            return;
+        }
+        if (keyStore == appliedKeyStore) {
+            return;
+        }
+        try {
+            springJCSMPFactory.updateJCSMPProperties(properties -> {
+                properties.setProperty(SSL_IN_MEMORY_KEY_STORE, keyStore);
+                properties.setProperty(SSL_KEY_STORE_PASSWORD, keyStoreFactory.getClientKeyStorePassword());
+            });
+        } catch (RuntimeException e) {
+            LOG.error("Could not apply the changed client certificate, retrying with the next check", e);
+            return;
+        }
+        // only an applied change is remembered, a failed one is retried with the next check
+        appliedKeyStore = keyStore;
+        LOG.info("Reloaded client certificate valid to {}", keyStoreFactory.getValidTo(keyStore));
+    }
+
+    @Override
+    public void close() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+        }
+    }
+}
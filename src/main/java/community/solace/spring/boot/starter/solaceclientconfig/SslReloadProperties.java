@@ -0,0 +1,35 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("solace.java.ssl-reload")
+public class SslReloadProperties {
+    /**
+     * Enable/Disable reloading the client certificate and private key from
+     * SSL_CLIENT_CERT_FILE and SSL_PRIVATE_KEY_FILE when their content changes.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the files are checked for changes.
+     */
+    private Duration interval = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+}
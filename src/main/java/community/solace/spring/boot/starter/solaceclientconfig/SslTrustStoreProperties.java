@@ -0,0 +1,35 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("solace.java.ssl-trust-store")
+public class SslTrustStoreProperties {
+    /**
+     * Add only CA certificates of SSL_TRUST_CERT to the trust store,
+     * leaving out end entity certificates contained in the bundle.
+     * Keep disabled to trust a pinned, self-signed broker certificate.
+     */
+    private boolean caCertificatesOnly = false;
+
+    /**
+     * Add the trust anchors of the JVM, usually its cacerts, to the trust store
+     * built from SSL_TRUST_CERT, instead of replacing them.
+     */
+    private boolean mergeJvmTrustStore = false;
+
+    public boolean isCaCertificatesOnly() {
+        return caCertificatesOnly;
+    }
+
+    public void setCaCertificatesOnly(boolean caCertificatesOnly) {
+        this.caCertificatesOnly = caCertificatesOnly;
+    }
+
+    public boolean isMergeJvmTrustStore() {
+        return mergeJvmTrustStore;
+    }
+
+    public void setMergeJvmTrustStore(boolean mergeJvmTrustStore) {
+        this.mergeJvmTrustStore = mergeJvmTrustStore;
+    }
+}
@@ -0,0 +1,130 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SolaceAdaptivePublisherTest {
+
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler = mock(JCSMPStreamingPublishCorrelatingEventHandler.class);
+    private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+
+    private SolaceAdaptivePublisher publisher;
+    private JCSMPStreamingPublishCorrelatingEventHandler correlationHandler;
+
+    @BeforeEach
+    void setUp() throws JCSMPException {
+        JCSMPSession session = mock(JCSMPSession.class);
+        when(session.getProperty(JCSMPProperties.PUB_ACK_WINDOW_SIZE)).thenReturn(4);
+        ArgumentCaptor<JCSMPStreamingPublishCorrelatingEventHandler> handlerCaptor =
+                ArgumentCaptor.forClass(JCSMPStreamingPublishCorrelatingEventHandler.class);
+        when(session.getMessageProducer(handlerCaptor.capture())).thenReturn(producer);
+        when(producer.sendMultiple(any(), anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> invocation.getArgument(2));
+
+        publisher = new SolaceAdaptivePublisher(session, eventHandler);
+        correlationHandler = handlerCaptor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.close();
+    }
+
+    @Test
+    void shouldSendImmediatelyAtLowLoadAndPassOriginalKey() throws JCSMPException {
+        BytesMessage message = persistentMessage("order-1");
+
+        publisher.publish(message, topic);
+        verify(producer).sendMultiple(any(), eq(0), eq(1), eq(0));
+        assertThat(publisher.getInFlightCount(), equalTo(1));
+
+        correlationHandler.responseReceivedEx(message.getCorrelationKey());
+        verify(eventHandler).responseReceivedEx("order-1");
+        assertThat(publisher.getInFlightCount(), equalTo(0));
+        assertThat(publisher.getSmoothedRoundTripNanos(), greaterThan(0L));
+        assertThat(publisher.getBatchSize(), equalTo(1));
+        assertThat(publisher.getLingerNanos(), equalTo(0L));
+    }
+
+    @Test
+    void shouldGrowBatchWhenWindowFillsUp() throws JCSMPException {
+        BytesMessage first = persistentMessage("order-1");
+        publisher.publish(first, topic);
+        correlationHandler.responseReceivedEx(first.getCorrelationKey());
+
+        for (int i = 2; i <= 4; i++) {
+            publisher.publish(persistentMessage("order-" + i), topic);
+        }
+
+        assertThat(publisher.getWindowSize(), equalTo(4));
+        assertThat(publisher.getInFlightCount(), equalTo(3));
+        assertThat(publisher.getBatchSize(), equalTo(2));
+        assertThat(publisher.getLingerNanos(), greaterThan(0L));
+    }
+
+    @Test
+    void shouldReportFailedBatchToEventHandler() throws JCSMPException {
+        JCSMPException failure = new JCSMPException("not connected");
+        doThrow(failure).when(producer).sendMultiple(any(), eq(0), eq(1), eq(0));
+        BytesMessage message = persistentMessage("order-1");
+
+        publisher.publish(message, topic);
+
+        verify(eventHandler).handleErrorEx(eq("order-1"), eq(failure), anyLong());
+        assertThat(message.getCorrelationKey(), equalTo("order-1"));
+        assertThat(publisher.getInFlightCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldReportUnsentMessagesToEventHandler() throws JCSMPException {
+        when(producer.sendMultiple(any(), eq(0), eq(1), eq(0))).thenReturn(0);
+        BytesMessage message = persistentMessage("order-1");
+
+        publisher.publish(message, topic);
+
+        verify(eventHandler).handleErrorEx(eq("order-1"), any(JCSMPException.class), anyLong());
+        assertThat(publisher.getInFlightCount(), equalTo(0));
+        assertThat(publisher.getSentCount(), equalTo(0L));
+    }
+
+    @Test
+    void shouldNotAcknowledgeReportedMessage() throws JCSMPException {
+        JCSMPException failure = new JCSMPException("connection lost");
+        AtomicReference<Object> sentKey = new AtomicReference<>();
+        doAnswer(invocation -> {
+            JCSMPSendMultipleEntry[] entries = invocation.getArgument(0);
+            sentKey.set(entries[0].getMessage().getCorrelationKey());
+            throw failure;
+        }).when(producer).sendMultiple(any(), eq(0), eq(1), eq(0));
+
+        publisher.publish(persistentMessage("order-1"), topic);
+        correlationHandler.responseReceivedEx(sentKey.get());
+
+        verify(eventHandler).handleErrorEx(eq("order-1"), eq(failure), anyLong());
+        verify(eventHandler, never()).responseReceivedEx(any());
+        assertThat(publisher.getInFlightCount(), equalTo(0));
+    }
+
+    private static BytesMessage persistentMessage(Object correlationKey) {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        message.setDeliveryMode(DeliveryMode.PERSISTENT);
+        message.setCorrelationKey(correlationKey);
+        return message;
+    }
+}
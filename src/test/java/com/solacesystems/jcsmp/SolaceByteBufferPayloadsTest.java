@@ -0,0 +1,65 @@
+package com.solacesystems.jcsmp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class SolaceByteBufferPayloadsTest {
+
+    @Test
+    void shouldWriteDirectBufferAsAttachment() throws IOException {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        ByteBuffer payload = ByteBuffer.allocateDirect(16);
+        payload.put("direct payload".getBytes(UTF_8)).flip();
+
+        SolaceByteBufferPayloads.writeAttachment(message, payload);
+
+        assertThat(toString(SolaceByteBufferPayloads.readAttachment(message)), equalTo("direct payload"));
+        assertThat(payload.position(), equalTo(0));
+    }
+
+    @Test
+    void shouldWriteScatteredBuffersInOrder() throws IOException {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        ByteBuffer header = ByteBuffer.wrap("header|".getBytes(UTF_8));
+        ByteBuffer body = ByteBuffer.allocateDirect(4);
+        body.put("body".getBytes(UTF_8)).flip();
+
+        SolaceByteBufferPayloads.writeAttachment(message, header, body);
+
+        assertThat(toString(SolaceByteBufferPayloads.readAttachment(message)), equalTo("header|body"));
+    }
+
+    @Test
+    void shouldPassWholeBackingArrayWithoutCopy() throws IOException {
+        BytesXMLMessage message = Mockito.mock(BytesXMLMessage.class);
+        byte[] bytes = "heap payload".getBytes(UTF_8);
+
+        SolaceByteBufferPayloads.writeAttachment(message, ByteBuffer.wrap(bytes));
+
+        verify(message).writeAttachment(bytes);
+    }
+
+    @Test
+    void shouldReturnReadOnlyAttachmentView() {
+        BytesXMLMessage message = Mockito.mock(BytesXMLMessage.class);
+        Mockito.when(message.getAttachmentByteBuffer()).thenReturn(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        ByteBuffer attachment = SolaceByteBufferPayloads.readAttachment(message);
+
+        assertThat(attachment.isReadOnly(), is(true));
+        assertThat(attachment.remaining(), equalTo(3));
+    }
+
+    private static String toString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class SolaceConflatingListenerTest {
+
+    private final Topic acme = JCSMPFactory.onlyInstance().createTopic("acme/prices/ACME");
+    private final Topic initech = JCSMPFactory.onlyInstance().createTopic("acme/prices/INITECH");
+    private final Topic umbrella = JCSMPFactory.onlyInstance().createTopic("acme/prices/UMBRELLA");
+    private final List<BytesXMLMessage> deliveredMessages = new CopyOnWriteArrayList<>();
+    private final CountDownLatch handlerBlocked = new CountDownLatch(1);
+    private final CountDownLatch releaseHandler = new CountDownLatch(1);
+    private final CountDownLatch allDelivered = new CountDownLatch(2);
+
+    private SolaceConflatingListener listener;
+
+    @AfterEach
+    void tearDown() {
+        releaseHandler.countDown();
+        listener.close();
+    }
+
+    @Test
+    void shouldDeliverLatestMessageToSlowHandler() throws InterruptedException {
+        listener = new SolaceConflatingListener(new BlockingHandler());
+        BytesXMLMessage first = message(acme);
+
+        listener.onReceive(first);
+        assertThat(handlerBlocked.await(5, TimeUnit.SECONDS), is(true));
+        listener.onReceive(message(acme));
+        listener.onReceive(message(acme));
+        BytesXMLMessage latest = message(acme);
+        listener.onReceive(latest);
+        releaseHandler.countDown();
+
+        assertThat(allDelivered.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(deliveredMessages, contains(first, latest));
+        assertThat(listener.getReceivedCount(), equalTo(4L));
+        assertThat(listener.getConflatedCount(), equalTo(2L));
+        assertThat(listener.getDroppedCount(), equalTo(0L));
+    }
+
+    @Test
+    void shouldDropMessagesOfNewKeysWhenTooManyKeysArePending() throws InterruptedException {
+        listener = new SolaceConflatingListener(XMLMessage::getDestination, new BlockingHandler(), 1);
+
+        listener.onReceive(message(acme));
+        assertThat(handlerBlocked.await(5, TimeUnit.SECONDS), is(true));
+        listener.onReceive(message(initech));
+        listener.onReceive(message(umbrella));
+
+        assertThat(listener.getPendingCount(), equalTo(1));
+        assertThat(listener.getDroppedCount(), equalTo(1L));
+    }
+
+    private static BytesXMLMessage message(Topic topic) {
+        BytesXMLMessage message = mock(BytesXMLMessage.class);
+        when(message.getDestination()).thenReturn(topic);
+        return message;
+    }
+
+    private class BlockingHandler implements XMLMessageListener {
+
+        @Override
+        public void onReceive(BytesXMLMessage message) {
+            handlerBlocked.countDown();
+            try {
+                releaseHandler.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredMessages.add(message);
+            allDelivered.countDown();
+        }
+
+        @Override
+        public void onException(JCSMPException exception) {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+public class SolaceConflatingPublisherTest {
+
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/prices");
+    private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+    private final ScheduledFuture<?> flushTask = mock(ScheduledFuture.class);
+
+    private SolaceConflatingPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        doReturn(flushTask).when(taskScheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofMillis(100)));
+        publisher = new SolaceConflatingPublisher(producer, taskScheduler, Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldSendOnlyLatestValuePerKey() throws JCSMPException {
+        XMLMessage oldPrice = mock(XMLMessage.class);
+        XMLMessage newPrice = mock(XMLMessage.class);
+        XMLMessage otherPrice = mock(XMLMessage.class);
+
+        assertThat(publisher.publish("ACME", oldPrice, topic), nullValue());
+        assertThat(publisher.publish("ACME", newPrice, topic), sameInstance(oldPrice));
+        assertThat(publisher.publish("INITECH", otherPrice, topic), nullValue());
+        assertThat(publisher.getPendingCount(), equalTo(2));
+        publisher.flush();
+
+        verify(producer, never()).send(oldPrice, topic);
+        verify(producer).send(newPrice, topic);
+        verify(producer).send(otherPrice, topic);
+        assertThat(publisher.getPublishedCount(), equalTo(3L));
+        assertThat(publisher.getConflatedCount(), equalTo(1L));
+        assertThat(publisher.getSentCount(), equalTo(2L));
+        assertThat(publisher.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldFlushPendingMessagesOnClose() throws JCSMPException {
+        XMLMessage price = mock(XMLMessage.class);
+
+        publisher.publish("ACME", price, topic);
+        publisher.close();
+
+        verify(flushTask).cancel(false);
+        verify(producer).send(price, topic);
+    }
+}
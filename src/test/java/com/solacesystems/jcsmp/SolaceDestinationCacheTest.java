@@ -0,0 +1,57 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class SolaceDestinationCacheTest {
+
+    @Test
+    void shouldReturnSameTopicInstanceOnHit() {
+        SolaceDestinationCache cache = new SolaceDestinationCache();
+
+        Topic first = cache.getTopic("acme/eu/order/1/v1");
+        Topic second = cache.getTopic("acme/eu/order/1/v1");
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(first.getName(), equalTo("acme/eu/order/1/v1"));
+        assertThat(cache.getMissCount(), equalTo(1L));
+        assertThat(cache.getHitCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldCacheTopicsAndQueuesSeparately() {
+        SolaceDestinationCache cache = new SolaceDestinationCache();
+
+        Topic topic = cache.getTopic("orders");
+        Queue queue = cache.getQueue("orders");
+
+        assertThat(queue.getName(), equalTo(topic.getName()));
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.getMissCount(), equalTo(2L));
+    }
+
+    @Test
+    void shouldEvictUnreferencedEntriesWhenFull() {
+        SolaceDestinationCache cache = new SolaceDestinationCache(10);
+        Topic hot = cache.getTopic("hot");
+
+        for (int i = 0; i < 100; i++) {
+            cache.getTopic("hot");
+            cache.getTopic("cold/" + i);
+        }
+
+        assertThat(cache.size(), lessThanOrEqualTo(10));
+        assertThat(cache.getEvictionCount(), equalTo(91L));
+        assertThat(cache.getTopic("hot"), is(sameInstance(hot)));
+    }
+
+    @Test
+    void shouldRejectInvalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SolaceDestinationCache(0));
+    }
+}
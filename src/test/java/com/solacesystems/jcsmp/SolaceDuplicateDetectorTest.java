@@ -0,0 +1,66 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class SolaceDuplicateDetectorTest {
+
+    @Test
+    void shouldDetectSeenIds() {
+        SolaceDuplicateDetector detector = new SolaceDuplicateDetector(1024, Duration.ofMinutes(5));
+
+        assertThat(detector.markSeen("rmid1:0d77c-b0b2e66aece-00000000-00000001"), is(true));
+        assertThat(detector.markSeen("rmid1:0d77c-b0b2e66aece-00000000-00000002"), is(true));
+        assertThat(detector.markSeen("rmid1:0d77c-b0b2e66aece-00000000-00000001"), is(false));
+        assertThat(detector.getDuplicateCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldDetectSeenIdsWithBloomFilter() {
+        SolaceDuplicateDetector detector = new SolaceDuplicateDetector(100_000, Duration.ofMinutes(5), true);
+
+        for (long id = 0; id < 10_000; id++) {
+            assertThat(detector.markSeen(id), is(true));
+        }
+        for (long id = 0; id < 10_000; id++) {
+            assertThat(detector.markSeen(id), is(false));
+        }
+        assertThat(detector.getDuplicateCount(), equalTo(10_000L));
+    }
+
+    @Test
+    void shouldForgetIdsAfterTimeToLive() throws InterruptedException {
+        SolaceDuplicateDetector detector = new SolaceDuplicateDetector(1024, Duration.ofMillis(20), true);
+
+        detector.markSeen("order-1");
+        Thread.sleep(50);
+
+        assertThat(detector.markSeen("order-1"), is(true));
+    }
+
+    @Test
+    void shouldForgetRemovedIds() {
+        SolaceDuplicateDetector detector = new SolaceDuplicateDetector(1024, Duration.ofMinutes(5), true);
+
+        detector.markSeen("order-1");
+        detector.forget("order-1");
+
+        assertThat(detector.markSeen("order-1"), is(true));
+        assertThat(detector.markSeen("order-1"), is(false));
+    }
+
+    @Test
+    void shouldKeepFixedCapacity() {
+        SolaceDuplicateDetector detector = new SolaceDuplicateDetector(16, Duration.ofMinutes(5));
+
+        for (long id = 0; id < 1000; id++) {
+            detector.markSeen(id);
+        }
+
+        assertThat(detector.getCapacity(), equalTo(16));
+        assertThat(detector.getEvictionCount(), equalTo(1000L - 16));
+    }
+}
@@ -0,0 +1,71 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class SolaceIdempotentListenerTest {
+
+    private final SolaceDuplicateDetector duplicateDetector = new SolaceDuplicateDetector(1024, Duration.ofMinutes(5));
+    private final XMLMessageListener delegate = mock(XMLMessageListener.class);
+
+    @Test
+    void shouldDropAndAcknowledgeRedeliveredMessage() throws SDTException {
+        SolaceIdempotentListener listener = new SolaceIdempotentListener(
+                SolaceIdempotentListener.userProperty("orderId"), duplicateDetector, delegate, true);
+        BytesXMLMessage message = message("order-1");
+        BytesXMLMessage redelivered = message("order-1");
+
+        listener.onReceive(message);
+        listener.onReceive(redelivered);
+
+        verify(delegate).onReceive(message);
+        verify(delegate, never()).onReceive(redelivered);
+        verify(redelivered).ackMessage();
+        assertThat(listener.getDuplicateCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldPassRedeliveryOfFailedMessage() throws SDTException {
+        SolaceIdempotentListener listener = new SolaceIdempotentListener(
+                SolaceIdempotentListener.userProperty("orderId"), duplicateDetector, delegate, true);
+        BytesXMLMessage message = message("order-1");
+        BytesXMLMessage redelivered = message("order-1");
+        doThrow(new IllegalStateException("handler failed")).when(delegate).onReceive(message);
+
+        assertThrows(IllegalStateException.class, () -> listener.onReceive(message));
+        listener.onReceive(redelivered);
+
+        verify(delegate).onReceive(redelivered);
+        verify(redelivered, never()).ackMessage();
+        assertThat(listener.getDuplicateCount(), equalTo(0L));
+    }
+
+    @Test
+    void shouldPassMessagesWithoutId() {
+        SolaceIdempotentListener listener = new SolaceIdempotentListener(duplicateDetector, delegate);
+        BytesXMLMessage message = mock(BytesXMLMessage.class);
+
+        listener.onReceive(message);
+        listener.onReceive(message);
+
+        verify(delegate, times(2)).onReceive(message);
+        assertThat(listener.getMissingIdCount(), equalTo(2L));
+    }
+
+    private static BytesXMLMessage message(String orderId) throws SDTException {
+        SDTMap properties = mock(SDTMap.class);
+        when(properties.getString("orderId")).thenReturn(orderId);
+        BytesXMLMessage message = mock(BytesXMLMessage.class);
+        when(message.getProperties()).thenReturn(properties);
+        return message;
+    }
+}
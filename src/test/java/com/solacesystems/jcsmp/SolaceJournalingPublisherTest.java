@@ -0,0 +1,153 @@
+package com.solacesystems.jcsmp;
+
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTED;
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+public class SolaceJournalingPublisherTest {
+
+    @TempDir
+    Path directory;
+
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+    private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler = mock(JCSMPStreamingPublishCorrelatingEventHandler.class);
+    private final ArgumentCaptor<JCSMPStreamingPublishCorrelatingEventHandler> handler =
+            ArgumentCaptor.forClass(JCSMPStreamingPublishCorrelatingEventHandler.class);
+
+    private SolaceOutboundJournal journal;
+    private SolaceJournalingPublisher publisher;
+
+    @BeforeEach
+    void setUp() throws IOException, JCSMPException {
+        JCSMPSession session = mock(JCSMPSession.class);
+        when(session.getMessageProducer(handler.capture())).thenReturn(producer);
+        journal = new SolaceOutboundJournal(directory);
+        publisher = new SolaceJournalingPublisher(journal, eventHandler);
+        publisher.start(session);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        publisher.close();
+        journal.close();
+    }
+
+    @Test
+    void shouldSendDirectlyWhileConnected() throws IOException, JCSMPException {
+        BytesMessage message = message("order-1");
+
+        publisher.publish(message, topic);
+
+        verify(producer).send(message, topic);
+        assertThat(publisher.getSentCount(), equalTo(1L));
+        assertThat(journal.isEmpty(), is(true));
+    }
+
+    @Test
+    void shouldJournalWhileDownAndReplayAfterReconnect() throws IOException, JCSMPException, InterruptedException {
+        publisher.handleEvent(new SessionEventArgs(RECONNECTING, "Reconnecting", null, 0));
+        BytesMessage message = message("order-1");
+
+        publisher.publish(message, topic);
+        verify(producer, never()).send(message, topic);
+        assertThat(journal.getPendingCount(), equalTo(1L));
+
+        publisher.handleEvent(new SessionEventArgs(RECONNECTED, "Reconnected", null, 0));
+
+        BytesMessage replayed = awaitReplayed(1).get(0);
+        assertThat(publisher.getJournaledCount(), equalTo(1L));
+        assertThat(journal.isEmpty(), is(false));
+
+        handler.getValue().responseReceivedEx(replayed.getCorrelationKey());
+        assertThat(journal.isEmpty(), is(true));
+        verify(eventHandler).responseReceivedEx(null);
+    }
+
+    @Test
+    void shouldReplayRejectedMessageAgain() throws IOException, JCSMPException, InterruptedException {
+        publisher.handleEvent(new SessionEventArgs(RECONNECTING, "Reconnecting", null, 0));
+        publisher.publish(message("order-1"), topic);
+        publisher.publish(message("order-2"), topic);
+        publisher.handleEvent(new SessionEventArgs(RECONNECTED, "Reconnected", null, 0));
+        List<BytesMessage> replayed = awaitReplayed(2);
+
+        JCSMPException cause = new JCSMPException("rejected");
+        handler.getValue().handleErrorEx(replayed.get(0).getCorrelationKey(), cause, 0L);
+        handler.getValue().responseReceivedEx(replayed.get(1).getCorrelationKey());
+        assertThat(journal.getPendingCount(), equalTo(2L));
+
+        // only the rejected message is sent again, the acknowledged one is skipped
+        BytesMessage again = awaitReplayed(3).get(2);
+        assertThat(payload(again), equalTo("order-1"));
+        handler.getValue().responseReceivedEx(again.getCorrelationKey());
+        assertThat(journal.isEmpty(), is(true));
+        verify(eventHandler).handleErrorEx(null, cause, 0L);
+    }
+
+    @Test
+    void shouldNotCountSessionErrorsAsAcknowledgements() throws IOException, JCSMPException {
+        BytesMessage message = message("order-1");
+        message.setCorrelationKey("order-1");
+        publisher.publish(message, topic);
+        JCSMPException cause = new JCSMPException("session down");
+
+        for (int i = 0; i < 300; i++) {
+            handler.getValue().handleErrorEx(null, cause, 0L);
+        }
+        handler.getValue().responseReceivedEx(message.getCorrelationKey());
+        handler.getValue().responseReceivedEx(message.getCorrelationKey());
+
+        verify(eventHandler, times(1)).responseReceivedEx("order-1");
+        // the window of 255 messages still fills up
+        for (int i = 0; i < 256; i++) {
+            publisher.publish(message("order-" + i), topic);
+        }
+        assertThat(publisher.getSentCount(), equalTo(256L));
+        assertThat(publisher.getJournaledCount(), equalTo(1L));
+    }
+
+    private List<BytesMessage> awaitReplayed(int count) throws JCSMPException, InterruptedException {
+        ArgumentCaptor<BytesMessage> sent = ArgumentCaptor.forClass(BytesMessage.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (publisher.getReplayedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        verify(producer, timeout(5000).times(count)).send(sent.capture(), eq(topic));
+        return sent.getAllValues();
+    }
+
+    private static String payload(BytesMessage message) {
+        ByteBuffer attachment = SolaceByteBufferPayloads.readAttachment(message);
+        byte[] bytes = new byte[attachment.remaining()];
+        attachment.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static BytesMessage message(String payload) {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        message.setDeliveryMode(DeliveryMode.PERSISTENT);
+        message.writeAttachment(payload.getBytes(UTF_8));
+        return message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import org.junit.jupiter.api.Test;
+
+public class SolaceMessagePoolTest {
+
+    @Test
+    void shouldReuseReleasedMessage() {
+        SolaceMessagePool<TextMessage> pool = new SolaceMessagePool<>(TextMessage.class);
+
+        TextMessage first = pool.acquire();
+        first.setText("price update");
+        pool.release(first);
+        TextMessage second = pool.acquire();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.getText(), is(nullValue()));
+        assertThat(pool.getAllocationCount(), equalTo(1L));
+        assertThat(pool.getReuseCount(), equalTo(1L));
+        assertThat(pool.getReleaseCount(), equalTo(1L));
+    }
+
+    @Test
+    void shouldDiscardMessagesWhenPoolIsFull() {
+        SolaceMessagePool<BytesMessage> pool = new SolaceMessagePool<>(BytesMessage.class, 1);
+
+        BytesMessage first = pool.acquire();
+        BytesMessage second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+
+        assertThat(pool.getAllocationCount(), equalTo(2L));
+        assertThat(pool.getDiscardCount(), equalTo(1L));
+        assertThat(pool.acquire(), is(sameInstance(first)));
+    }
+
+    @Test
+    void shouldReuseMessageReleasedOnAnotherThread() throws InterruptedException {
+        SolaceMessagePool<BytesMessage> pool = new SolaceMessagePool<>(BytesMessage.class);
+        BytesMessage message = pool.acquire();
+
+        Thread acknowledgementThread = new Thread(() -> pool.release(message));
+        acknowledgementThread.start();
+        acknowledgementThread.join();
+
+        assertThat(pool.acquire(), is(sameInstance(message)));
+        assertThat(pool.getReuseCount(), equalTo(1L));
+    }
+}
@@ -0,0 +1,149 @@
+package com.solacesystems.jcsmp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SolaceOutboundJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadMessagesInAppendOrder() throws IOException {
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory)) {
+            journal.append(message("first", DeliveryMode.PERSISTENT), JCSMPFactory.onlyInstance().createTopic("acme/orders"));
+            journal.append(message("second", DeliveryMode.DIRECT), JCSMPFactory.onlyInstance().createQueue("orders"));
+
+            SolaceOutboundJournal.Record first = journal.peek();
+            assertThat(payload(first), equalTo("first"));
+            assertThat(first.getDestination().getName(), equalTo("acme/orders"));
+            assertThat(first.getDestination(), is(instanceOf(Topic.class)));
+            assertThat(first.getDeliveryMode(), equalTo(DeliveryMode.PERSISTENT));
+            journal.advance();
+
+            SolaceOutboundJournal.Record second = journal.peek();
+            assertThat(payload(second), equalTo("second"));
+            assertThat(second.getDestination(), is(instanceOf(Queue.class)));
+            assertThat(second.getDeliveryMode(), equalTo(DeliveryMode.DIRECT));
+            journal.advance();
+
+            assertThat(journal.peek(), is(nullValue()));
+            assertThat(journal.isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    void shouldDeleteSegmentsAfterReplay() throws IOException {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(message("order-" + i, DeliveryMode.PERSISTENT), topic);
+            }
+            assertThat(journal.getSegmentCount(), greaterThan(1L));
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(payload(journal.peek()), equalTo("order-" + i));
+                journal.advance();
+            }
+
+            assertThat(journal.peek(), is(nullValue()));
+            assertThat(journal.getSegmentCount(), equalTo(1L));
+            assertThat(journal.getCompactedSegmentCount(), greaterThan(0L));
+        }
+    }
+
+    @Test
+    void shouldContinueAfterCheckpointWhenReopened() throws IOException {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(message("order-" + i, DeliveryMode.PERSISTENT), topic);
+            }
+            journal.peek();
+            journal.advance();
+            journal.peek();
+            journal.advance();
+        }
+
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            assertThat(journal.getPendingCount(), equalTo(3L));
+            assertThat(payload(journal.peek()), equalTo("order-2"));
+            journal.append(message("order-5", DeliveryMode.PERSISTENT), topic);
+            assertThat(journal.getPendingCount(), equalTo(4L));
+        }
+    }
+
+    @Test
+    void shouldAdvanceOverAcknowledgedMessagesInAppendOrder() throws IOException {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            for (int i = 0; i < 4; i++) {
+                journal.append(message("order-" + i, DeliveryMode.PERSISTENT), topic);
+            }
+            List<SolaceOutboundJournal.Record> records = new ArrayList<>();
+            SolaceOutboundJournal.Record record;
+            while ((record = journal.next()) != null) {
+                records.add(record);
+            }
+            assertThat(records.size(), equalTo(4));
+            assertThat(payload(records.get(3)), equalTo("order-3"));
+
+            journal.acknowledge(records.get(1).getPosition());
+            assertThat(journal.getPendingCount(), equalTo(4L));
+            journal.acknowledge(records.get(0).getPosition());
+            assertThat(journal.getPendingCount(), equalTo(2L));
+            assertThat(payload(journal.peek()), equalTo("order-2"));
+        }
+
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            assertThat(journal.getPendingCount(), equalTo(2L));
+        }
+    }
+
+    @Test
+    void shouldReturnRewoundMessagesAgainExceptAcknowledgedOnes() throws IOException {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+        try (SolaceOutboundJournal journal = new SolaceOutboundJournal(directory, 64)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(message("order-" + i, DeliveryMode.PERSISTENT), topic);
+            }
+            SolaceOutboundJournal.Record first = journal.next();
+            SolaceOutboundJournal.Record second = journal.next();
+            journal.next();
+            assertThat(journal.next(), is(nullValue()));
+
+            journal.acknowledge(second.getPosition());
+            journal.rewind(first.getPosition());
+
+            assertThat(payload(journal.next()), equalTo("order-0"));
+            assertThat(payload(journal.next()), equalTo("order-2"));
+            assertThat(journal.next(), is(nullValue()));
+        }
+    }
+
+    private static BytesMessage message(String payload, DeliveryMode deliveryMode) {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        message.setDeliveryMode(deliveryMode);
+        message.writeAttachment(payload.getBytes(UTF_8));
+        return message;
+    }
+
+    private static String payload(SolaceOutboundJournal.Record record) {
+        ByteBuffer attachment = record.getAttachment();
+        byte[] bytes = new byte[attachment.remaining()];
+        attachment.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.solacesystems.jcsmp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.google.protobuf.Timestamp;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+public class SolacePayloadCodecsTest {
+
+    public record Price(String symbol, long value) {
+    }
+
+    private final SolacePayloadCodecs codecs = new SolacePayloadCodecs(List.of(
+            new RawBytesPayloadCodec(),
+            new ProtobufPayloadCodec(),
+            new JacksonPayloadCodec(JsonMapper.builder().build())));
+
+    @Test
+    void shouldSelectCodecByPayloadType() {
+        assertThat(codecs.getCodec(byte[].class), instanceOf(RawBytesPayloadCodec.class));
+        assertThat(codecs.getCodec(ByteBuffer.class), instanceOf(RawBytesPayloadCodec.class));
+        assertThat(codecs.getCodec(Timestamp.class), instanceOf(ProtobufPayloadCodec.class));
+        assertThat(codecs.getCodec(Price.class), instanceOf(JacksonPayloadCodec.class));
+    }
+
+    @Test
+    void shouldNotUseJacksonForRawBytesAndProtobufMessages() {
+        JacksonPayloadCodec jackson = new JacksonPayloadCodec(JsonMapper.builder().build());
+
+        assertThat(jackson.supports(byte[].class), equalTo(false));
+        assertThat(jackson.supports(ByteBuffer.class), equalTo(false));
+        assertThat(jackson.supports(Timestamp.class), equalTo(false));
+        assertThat(jackson.supports(Price.class), equalTo(true));
+    }
+
+    @Test
+    void shouldEncodeAndDecodeRawBytes() throws IOException {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+
+        codecs.encode("raw".getBytes(UTF_8), message);
+
+        assertThat(new String(codecs.decode(message, byte[].class), UTF_8), equalTo("raw"));
+    }
+
+    @Test
+    void shouldEncodeAndDecodeJson() throws IOException {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+
+        codecs.encode(new Price("SOL", 4711), message);
+
+        assertThat(codecs.decode(message, Price.class), equalTo(new Price("SOL", 4711)));
+    }
+
+    @Test
+    void shouldEncodeAndDecodeProtobuf() throws IOException {
+        BytesMessage message = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        Timestamp timestamp = Timestamp.newBuilder().setSeconds(1_760_000_000L).setNanos(4711).build();
+
+        codecs.encode(timestamp, message);
+
+        assertThat(codecs.decode(message, Timestamp.class), equalTo(timestamp));
+    }
+
+    @Test
+    void shouldRejectUnsupportedType() {
+        SolacePayloadCodecs rawOnly = new SolacePayloadCodecs(List.of(new RawBytesPayloadCodec()));
+
+        assertThrows(IllegalArgumentException.class, () -> rawOnly.getCodec(Price.class));
+    }
+}
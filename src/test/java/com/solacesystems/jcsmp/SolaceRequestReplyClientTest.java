@@ -0,0 +1,80 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SolaceRequestReplyClientTest {
+
+    private final Topic inbox = JCSMPFactory.onlyInstance().createTopic("#P2P/v:broker/client-1/#");
+    private final Topic service = JCSMPFactory.onlyInstance().createTopic("acme/pricing/request");
+    private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+
+    private SolaceRequestReplyClient client;
+    private XMLMessageListener replyListener;
+
+    @BeforeEach
+    void setUp() throws JCSMPException {
+        JCSMPSession session = mock(JCSMPSession.class);
+        when(session.getProperty(JCSMPProperties.P2PINBOX_IN_USE)).thenReturn(inbox);
+        when(session.getMessageProducer(any())).thenReturn(producer);
+        ArgumentCaptor<XMLMessageListener> listenerCaptor = ArgumentCaptor.forClass(XMLMessageListener.class);
+        when(session.getMessageConsumer(listenerCaptor.capture())).thenReturn(mock(XMLMessageConsumer.class));
+
+        client = new SolaceRequestReplyClient(session);
+        replyListener = listenerCaptor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldCompleteRequestWithMatchingReply() throws Exception {
+        BytesMessage request = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+
+        CompletableFuture<BytesXMLMessage> future = client.request(request, service, Duration.ofSeconds(10));
+        verify(producer).send(request, service);
+        assertThat(request.getReplyTo(), equalTo(inbox));
+
+        BytesXMLMessage reply = mock(BytesXMLMessage.class);
+        when(reply.getCorrelationId()).thenReturn(request.getCorrelationId());
+        replyListener.onReceive(reply);
+
+        assertThat(future.get(1, TimeUnit.SECONDS), is(sameInstance(reply)));
+        assertThat(client.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldTimeOutRequestWithoutReply() {
+        BytesMessage request = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+
+        CompletableFuture<BytesXMLMessage> future = client.request(request, service, Duration.ofMillis(50));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(TimeoutException.class)));
+        assertThat(client.getTimeoutCount(), equalTo(1L));
+
+        BytesXMLMessage lateReply = mock(BytesXMLMessage.class);
+        when(lateReply.getCorrelationId()).thenReturn(request.getCorrelationId());
+        replyListener.onReceive(lateReply);
+        assertThat(client.getUnmatchedReplyCount(), equalTo(1L));
+    }
+}
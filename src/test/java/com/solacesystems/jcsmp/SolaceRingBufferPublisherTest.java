@@ -0,0 +1,192 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+
+public class SolaceRingBufferPublisherTest {
+
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/prices");
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler = mock(JCSMPStreamingPublishCorrelatingEventHandler.class);
+
+    @Test
+    void shouldSendAllMessagesOfConcurrentWriters() throws Exception {
+        List<XMLMessage> sentMessages = new ArrayList<>();
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        doAnswer(invocation -> collect(invocation, sentMessages))
+                .when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+        XMLMessage message = mock(XMLMessage.class);
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 16,
+                SolaceRingBufferPublisher.WaitStrategy.YIELD);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread writer = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    publisher.publish(message, topic);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        publisher.close();
+
+        assertThat(publisher.getSentCount(), equalTo(4000L));
+        assertThat(sentMessages.size(), equalTo(4000));
+    }
+
+    @Test
+    void shouldKeepOrderOfSingleWriter() throws JCSMPException {
+        List<XMLMessage> sentMessages = new ArrayList<>();
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        XMLMessage first = mock(XMLMessage.class);
+        XMLMessage second = mock(XMLMessage.class);
+        XMLMessage third = mock(XMLMessage.class);
+        doAnswer(invocation -> collect(invocation, sentMessages))
+                .when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 2, 1,
+                SolaceRingBufferPublisher.WaitStrategy.BUSY_SPIN, false);
+        publisher.publish(first, topic);
+        publisher.publish(second, topic);
+        publisher.publish(third, topic);
+        publisher.close();
+
+        assertThat(sentMessages, contains(first, second, third));
+    }
+
+    @Test
+    void shouldRejectMessageWhenRingIsFull() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            return invocation.getArgument(2);
+        }).when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+        XMLMessage message = mock(XMLMessage.class);
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 2,
+                SolaceRingBufferPublisher.WaitStrategy.PARK);
+        assertThat(publisher.tryPublish(message, topic), is(true));
+        assertThat(sending.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(publisher.tryPublish(message, topic), is(true));
+        assertThat(publisher.tryPublish(message, topic), is(false));
+
+        release.countDown();
+        publisher.close();
+        assertThat(publisher.getSentCount(), equalTo(2L));
+    }
+
+    @Test
+    void shouldCountFailedSends() throws Exception {
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        doAnswer(invocation -> {
+            throw new JCSMPException("not connected");
+        }).when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 4,
+                SolaceRingBufferPublisher.WaitStrategy.YIELD);
+        XMLMessage message = mock(XMLMessage.class);
+        when(message.getCorrelationKey()).thenReturn("key");
+        publisher.publish(message, topic);
+        publisher.close();
+
+        assertThat(publisher.getFailureCount(), equalTo(1L));
+        assertThat(publisher.getSentCount(), equalTo(0L));
+        verify(eventHandler).handleErrorEx(eq("key"), any(JCSMPException.class), anyLong());
+    }
+
+    @Test
+    void shouldSendBatchWithSingleSendMultiple() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            batchSizes.add(invocation.getArgument(2));
+            return invocation.getArgument(2);
+        }).when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 16,
+                SolaceRingBufferPublisher.WaitStrategy.YIELD);
+        publisher.publish(mock(XMLMessage.class), topic);
+        assertThat(sending.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < 7; i++) {
+            publisher.publish(mock(XMLMessage.class), topic);
+        }
+        release.countDown();
+        publisher.close();
+
+        assertThat(batchSizes, contains(1, 7));
+        assertThat(publisher.getSentCount(), equalTo(8L));
+        verify(producer, never()).send(any(XMLMessage.class), any(Destination.class));
+    }
+
+    @Test
+    void shouldReportUnsentMessagesOfPartialBatch() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        XMLMessageProducer producer = mock(XMLMessageProducer.class);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await();
+            int length = invocation.getArgument(2);
+            // the second batch is sent only partially
+            return length == 1 ? 1 : length - 1;
+        }).when(producer).sendMultiple(any(), anyInt(), anyInt(), anyInt());
+        XMLMessage first = mock(XMLMessage.class);
+        XMLMessage second = mock(XMLMessage.class);
+        XMLMessage third = mock(XMLMessage.class);
+        when(first.getCorrelationKey()).thenReturn("first");
+        when(second.getCorrelationKey()).thenReturn("second");
+        when(third.getCorrelationKey()).thenReturn("third");
+
+        SolaceRingBufferPublisher publisher = new SolaceRingBufferPublisher(producer, eventHandler, 4,
+                SolaceRingBufferPublisher.WaitStrategy.YIELD);
+        publisher.publish(first, topic);
+        assertThat(sending.await(5, TimeUnit.SECONDS), is(true));
+        publisher.publish(second, topic);
+        publisher.publish(third, topic);
+        release.countDown();
+        publisher.close();
+
+        assertThat(publisher.getFailureCount(), equalTo(1L));
+        assertThat(publisher.getSentCount(), equalTo(2L));
+        verify(eventHandler).handleErrorEx(eq("third"), any(JCSMPException.class), anyLong());
+        verify(eventHandler, never()).handleErrorEx(eq("first"), any(JCSMPException.class), anyLong());
+        verify(eventHandler, never()).handleErrorEx(eq("second"), any(JCSMPException.class), anyLong());
+    }
+
+    private static int collect(InvocationOnMock invocation, List<XMLMessage> sentMessages) {
+        JCSMPSendMultipleEntry[] entries = invocation.getArgument(0);
+        int offset = invocation.getArgument(1);
+        int length = invocation.getArgument(2);
+        for (int i = offset; i < offset + length; i++) {
+            sentMessages.add(entries[i].getMessage());
+        }
+        return length;
+    }
+}
@@ -0,0 +1,213 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SolaceStripedProducerTest {
+
+    private final List<JCSMPSession> sessions = new ArrayList<>();
+    private final List<XMLMessageProducer> producers = new ArrayList<>();
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders");
+
+    private final JCSMPStreamingPublishCorrelatingEventHandler eventHandler = mock(JCSMPStreamingPublishCorrelatingEventHandler.class);
+
+    private SolaceStripedProducer stripedProducer;
+
+    @BeforeEach
+    void setUp() throws JCSMPException {
+        for (int i = 0; i < 4; i++) {
+            JCSMPSession session = mock(JCSMPSession.class);
+            XMLMessageProducer producer = mock(XMLMessageProducer.class);
+            when(session.getMessageProducer(any())).thenReturn(producer);
+            sessions.add(session);
+            producers.add(producer);
+        }
+        stripedProducer = new SolaceStripedProducer(sessions, eventHandler);
+    }
+
+    @Test
+    void shouldSendMessagesWithSameKeyBySameProducer() throws JCSMPException {
+        XMLMessage message = mock(XMLMessage.class);
+
+        for (int i = 0; i < 10; i++) {
+            stripedProducer.send("order-4711", message, topic);
+        }
+
+        long usedStripes = 0;
+        for (int stripe = 0; stripe < stripedProducer.getStripeCount(); stripe++) {
+            if (stripedProducer.getSendCount(stripe) > 0) {
+                usedStripes++;
+                assertThat(stripedProducer.getSendCount(stripe), equalTo(10L));
+                verify(producers.get(stripe), times(10)).send(message, topic);
+            } else {
+                verify(producers.get(stripe), never()).send(any(XMLMessage.class), any(Destination.class));
+            }
+        }
+        assertThat(usedStripes, equalTo(1L));
+    }
+
+    @Test
+    void shouldSpreadKeysAcrossStripes() throws JCSMPException {
+        XMLMessage message = mock(XMLMessage.class);
+
+        for (int i = 0; i < 1000; i++) {
+            stripedProducer.send("order-" + i, message, topic);
+        }
+
+        for (int stripe = 0; stripe < stripedProducer.getStripeCount(); stripe++) {
+            assertThat(stripedProducer.getSendCount(stripe) > 0, equalTo(true));
+        }
+    }
+
+    @Test
+    void shouldCloseProducersAndSessions() {
+        stripedProducer.close();
+
+        for (int i = 0; i < sessions.size(); i++) {
+            verify(producers.get(i)).close();
+            verify(sessions.get(i)).closeSession();
+        }
+    }
+
+    @Test
+    void shouldRollOverOneStripeAtATime() throws JCSMPException {
+        List<JCSMPSession> newSessions = new ArrayList<>();
+        List<XMLMessageProducer> newProducers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            JCSMPSession session = mock(JCSMPSession.class);
+            XMLMessageProducer producer = mock(XMLMessageProducer.class);
+            when(session.getMessageProducer(any())).thenReturn(producer);
+            newSessions.add(session);
+            newProducers.add(producer);
+        }
+
+        stripedProducer.rollover(stripe -> {
+            for (int i = 0; i < stripe; i++) {
+                verify(sessions.get(i)).closeSession();
+            }
+            verify(sessions.get(stripe), never()).closeSession();
+            return newSessions.get(stripe);
+        });
+
+        for (int i = 0; i < 4; i++) {
+            verify(producers.get(i)).close();
+            verify(sessions.get(i)).closeSession();
+        }
+        XMLMessage message = mock(XMLMessage.class);
+        for (int i = 0; i < 100; i++) {
+            stripedProducer.send("order-" + i, message, topic);
+        }
+        for (XMLMessageProducer producer : producers) {
+            verify(producer, never()).send(any(XMLMessage.class), any(Destination.class));
+        }
+        stripedProducer.close();
+        for (int i = 0; i < 4; i++) {
+            verify(newSessions.get(i)).closeSession();
+        }
+    }
+
+    @Test
+    void shouldCloseReplacedStripeAfterAcknowledgements() throws Exception {
+        ArgumentCaptor<JCSMPStreamingPublishCorrelatingEventHandler> handler =
+                ArgumentCaptor.forClass(JCSMPStreamingPublishCorrelatingEventHandler.class);
+        verify(sessions.get(0)).getMessageProducer(handler.capture());
+        XMLMessage message = mock(XMLMessage.class);
+        when(message.getDeliveryMode()).thenReturn(DeliveryMode.PERSISTENT);
+        when(message.getCorrelationKey()).thenReturn("key");
+        // the hash 0 of the key 0 selects stripe 0
+        stripedProducer.send(0, message, topic);
+        assertThat(stripedProducer.getInFlightCount(0), equalTo(1));
+        ArgumentCaptor<Object> wrappedKey = ArgumentCaptor.forClass(Object.class);
+        verify(message).setCorrelationKey(wrappedKey.capture());
+
+        AtomicBoolean acknowledged = new AtomicBoolean();
+        doAnswer(invocation -> {
+            assertThat(acknowledged.get(), equalTo(true));
+            return null;
+        }).when(producers.get(0)).close();
+        Thread acknowledger = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            acknowledged.set(true);
+            handler.getValue().responseReceivedEx(wrappedKey.getValue());
+        });
+        acknowledger.start();
+
+        stripedProducer.rollover(i -> newSession(), Duration.ofSeconds(10));
+
+        acknowledger.join();
+        verify(producers.get(0)).close();
+        verify(eventHandler).responseReceivedEx("key");
+    }
+
+    @Test
+    void shouldCloseReplacedStripeAfterDrainTimeout() throws JCSMPException {
+        XMLMessage message = mock(XMLMessage.class);
+        when(message.getDeliveryMode()).thenReturn(DeliveryMode.PERSISTENT);
+        stripedProducer.send(0, message, topic);
+
+        stripedProducer.rollover(i -> newSession(), Duration.ofMillis(20));
+
+        for (int i = 0; i < 4; i++) {
+            verify(producers.get(i)).close();
+            verify(sessions.get(i)).closeSession();
+        }
+    }
+
+    @Test
+    void shouldNotCountSessionErrorsAsAcknowledgements() throws JCSMPException {
+        ArgumentCaptor<JCSMPStreamingPublishCorrelatingEventHandler> handler =
+                ArgumentCaptor.forClass(JCSMPStreamingPublishCorrelatingEventHandler.class);
+        verify(sessions.get(0)).getMessageProducer(handler.capture());
+        XMLMessage message = mock(XMLMessage.class);
+        when(message.getDeliveryMode()).thenReturn(DeliveryMode.PERSISTENT);
+        stripedProducer.send(0, message, topic);
+        JCSMPException cause = new JCSMPException("session down");
+
+        handler.getValue().handleErrorEx(null, cause, 0L);
+        handler.getValue().handleErrorEx(null, cause, 0L);
+
+        assertThat(stripedProducer.getInFlightCount(0), equalTo(1));
+        verify(eventHandler, times(2)).handleErrorEx(null, cause, 0L);
+    }
+
+    @Test
+    void shouldNotResendFailedSend() throws JCSMPException {
+        XMLMessage message = mock(XMLMessage.class);
+        when(message.getDeliveryMode()).thenReturn(DeliveryMode.PERSISTENT);
+        when(message.getCorrelationKey()).thenReturn("key");
+        JCSMPException cause = new JCSMPException("closed");
+        doThrow(cause).when(producers.get(0)).send(message, topic);
+
+        JCSMPException thrown = assertThrows(JCSMPException.class, () -> stripedProducer.send(0, message, topic));
+
+        assertThat(thrown, equalTo(cause));
+        verify(producers.get(0)).send(message, topic);
+        verify(message).setCorrelationKey("key");
+        assertThat(stripedProducer.getInFlightCount(0), equalTo(0));
+        assertThat(stripedProducer.getSendCount(0), equalTo(0L));
+    }
+
+    private static JCSMPSession newSession() throws JCSMPException {
+        JCSMPSession session = mock(JCSMPSession.class);
+        when(session.getMessageProducer(any())).thenReturn(mock(XMLMessageProducer.class));
+        return session;
+    }
+}
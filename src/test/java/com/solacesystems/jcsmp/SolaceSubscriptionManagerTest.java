@@ -0,0 +1,117 @@
+package com.solacesystems.jcsmp;
+
+import static com.solacesystems.jcsmp.JCSMPProperties.REAPPLY_SUBSCRIPTIONS;
+import static com.solacesystems.jcsmp.SessionEvent.RECONNECTED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+public class SolaceSubscriptionManagerTest {
+
+    private JCSMPSession mockSession;
+
+    private SolaceSubscriptionManager subscriptionManager;
+
+    @BeforeEach
+    void setUp() {
+        mockSession = Mockito.mock(JCSMPSession.class);
+        subscriptionManager = new SolaceSubscriptionManager(mockSession);
+    }
+
+    @Test
+    void shouldCollapseSubscriptionsCoveredByWildcards() {
+        Set<String> minimal = SolaceSubscriptionManager.minimalSubscriptions(List.of(
+                "a/b/c", "a/>", "a", "a/*/d",
+                "x/y*/z", "x/yy/z", "x/*/z",
+                "p/>/q", "p/*/q",
+                "m/n", "m/n*"));
+
+        assertThat(minimal, containsInAnyOrder("a/>", "a", "x/*/z", "p/*/q", "m/n*"));
+    }
+
+    @Test
+    void shouldNotCollapseSharedSubscriptions() {
+        Set<String> minimal = SolaceSubscriptionManager.minimalSubscriptions(List.of(
+                "#share/group/a/>", "#share/group/a/b"));
+
+        assertThat(minimal, containsInAnyOrder("#share/group/a/>", "#share/group/a/b"));
+    }
+
+    @Test
+    void shouldWaitForConfirmOnlyOnLastSubscriptionOfBatch() throws JCSMPException {
+        List<String> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            subscriptions.add("acme/eu/order/" + i + "/v1");
+        }
+
+        subscriptionManager.addSubscriptions(subscriptions);
+
+        verify(mockSession, times(99)).addSubscription(any(Subscription.class), eq(false));
+        verify(mockSession, times(1)).addSubscription(any(Subscription.class), eq(true));
+    }
+
+    @Test
+    void shouldRemoveCoveredSubscriptionsWhenWildcardIsAdded() throws JCSMPException {
+        subscriptionManager.addSubscriptions(List.of("a/b", "a/c"));
+        subscriptionManager.addSubscription("a/>");
+
+        InOrder inOrder = inOrder(mockSession);
+        inOrder.verify(mockSession).addSubscription(topic("a/>"), eq(false));
+        inOrder.verify(mockSession).removeSubscription(any(Subscription.class), eq(false));
+        inOrder.verify(mockSession).removeSubscription(any(Subscription.class), eq(true));
+        assertThat(subscriptionManager.getAppliedSubscriptions(), containsInAnyOrder("a/>"));
+        assertThat(subscriptionManager.getSubscriptions(), containsInAnyOrder("a/b", "a/c", "a/>"));
+    }
+
+    @Test
+    void shouldApplyCoveredSubscriptionsWhenWildcardIsRemoved() throws JCSMPException {
+        subscriptionManager.addSubscriptions(List.of("a/b", "a/>"));
+        subscriptionManager.removeSubscription("a/>");
+
+        InOrder inOrder = inOrder(mockSession);
+        inOrder.verify(mockSession).addSubscription(topic("a/>"), eq(true));
+        inOrder.verify(mockSession).addSubscription(topic("a/b"), eq(false));
+        inOrder.verify(mockSession).removeSubscription(topic("a/>"), eq(true));
+        assertThat(subscriptionManager.getAppliedSubscriptions(), containsInAnyOrder("a/b"));
+    }
+
+    @Test
+    void shouldReplaySubscriptionsOnReconnect() throws JCSMPException {
+        subscriptionManager.addSubscriptions(List.of("a/b", "c/d"));
+        Mockito.clearInvocations(mockSession);
+        SessionEventArgs reconnected = new SessionEventArgs(RECONNECTED, "Reconnected", null, 0);
+
+        subscriptionManager.handleEvent(reconnected);
+
+        verify(mockSession, times(2)).addSubscription(any(Subscription.class), eq(false));
+    }
+
+    @Test
+    void shouldNotReplaySubscriptionsIfSessionReappliesThem() throws JCSMPException {
+        when(mockSession.getProperty(REAPPLY_SUBSCRIPTIONS)).thenReturn(true);
+        SessionEventArgs reconnected = new SessionEventArgs(RECONNECTED, "Reconnected", null, 0);
+
+        subscriptionManager.handleEvent(reconnected);
+
+        verify(mockSession, never()).addSubscription(any(Subscription.class), anyBoolean());
+    }
+
+    private static Topic topic(String name) {
+        return argThat(topic -> topic != null && name.equals(topic.getName()));
+    }
+}
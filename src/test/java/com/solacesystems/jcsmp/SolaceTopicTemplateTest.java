@@ -0,0 +1,63 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SolaceTopicTemplateTest {
+
+    private SolaceDestinationCache destinationCache;
+
+    @BeforeEach
+    void setUp() {
+        destinationCache = new SolaceDestinationCache();
+    }
+
+    @Test
+    void shouldRenderTopic() {
+        SolaceTopicTemplate template = new SolaceTopicTemplate("acme/{region}/{entity}/{id}/v1", destinationCache);
+
+        Topic topic = template.resolve("eu", "order", "4711");
+
+        assertThat(template.getVariableNames(), contains("region", "entity", "id"));
+        assertThat(topic.getName(), equalTo("acme/eu/order/4711/v1"));
+    }
+
+    @Test
+    void shouldRenderTopicWithManyVariables() {
+        SolaceTopicTemplate template = new SolaceTopicTemplate("{a}/{b}/{c}/{d}/{e}", destinationCache);
+
+        assertThat(template.resolve("1", "2", "3", "4", "5").getName(), equalTo("1/2/3/4/5"));
+    }
+
+    @Test
+    void shouldReturnSameInstanceWithoutDestinationCacheLookup() {
+        SolaceTopicTemplate template = new SolaceTopicTemplate("acme/{region}/v1", destinationCache);
+
+        Topic first = template.resolve("eu");
+        Topic second = template.resolve(new StringBuilder("eu"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(destinationCache.getMissCount(), equalTo(1L));
+        assertThat(destinationCache.getHitCount(), equalTo(0L));
+    }
+
+    @Test
+    void shouldRejectWrongNumberOfValues() {
+        SolaceTopicTemplate template = new SolaceTopicTemplate("acme/{region}/v1", destinationCache);
+
+        assertThrows(IllegalArgumentException.class, () -> template.resolve("eu", "us"));
+    }
+
+    @Test
+    void shouldRejectInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new SolaceTopicTemplate("acme/{region/v1", destinationCache));
+        assertThrows(IllegalArgumentException.class, () -> new SolaceTopicTemplate("acme/{}/v1", destinationCache));
+        assertThrows(IllegalArgumentException.class, () -> new SolaceTopicTemplate("acme/region}/v1", destinationCache));
+    }
+}
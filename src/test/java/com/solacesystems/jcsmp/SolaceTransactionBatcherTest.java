@@ -0,0 +1,140 @@
+package com.solacesystems.jcsmp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+public class SolaceTransactionBatcherTest {
+
+    private final Topic topic = JCSMPFactory.onlyInstance().createTopic("acme/orders/processed");
+    private final TransactedSession transactedSession = mock(TransactedSession.class);
+    private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+
+    @BeforeEach
+    void setUp() throws JCSMPException {
+        when(transactedSession.getMessageProducer(any())).thenReturn(producer);
+    }
+
+    @Test
+    void shouldCommitWhenMaxMessagesReached() throws JCSMPException {
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 3, Long.MAX_VALUE, Duration.ofMinutes(1), null);
+
+        batcher.send(message(10), topic);
+        batcher.consumed(message(10));
+        verify(transactedSession, never()).commit();
+
+        batcher.send(message(10), topic);
+        verify(transactedSession).commit();
+        assertThat(batcher.getCommitCount(), equalTo(1L));
+        assertThat(batcher.getLastTransactionSize(), equalTo(3));
+        assertThat(batcher.getPendingMessageCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldCommitWhenMaxBytesReached() throws JCSMPException {
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 100, 1000, Duration.ofMinutes(1), null);
+
+        batcher.send(message(600), topic);
+        batcher.send(message(600), topic);
+
+        verify(transactedSession).commit();
+        assertThat(batcher.getLastTransactionSize(), equalTo(2));
+    }
+
+    @Test
+    void shouldNotSplitUnitOfWork() throws JCSMPException {
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 2, Long.MAX_VALUE, Duration.ofMinutes(1), null);
+
+        batcher.execute(() -> {
+            batcher.consumed(message(10));
+            batcher.send(message(10), topic);
+            batcher.send(message(10), topic);
+            verify(transactedSession, never()).commit();
+        });
+
+        verify(transactedSession).commit();
+        assertThat(batcher.getLastTransactionSize(), equalTo(3));
+    }
+
+    @Test
+    void shouldRollbackFailedUnitOfWork() throws JCSMPException {
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 10, Long.MAX_VALUE, Duration.ofMinutes(1), null);
+        batcher.consumed(message(10));
+
+        assertThrows(IllegalStateException.class, () -> batcher.execute(() -> {
+            batcher.consumed(message(10));
+            throw new IllegalStateException("processing failed");
+        }));
+
+        verify(transactedSession).rollback();
+        verify(transactedSession, never()).commit();
+        assertThat(batcher.getRollbackCount(), equalTo(1L));
+        assertThat(batcher.getPendingMessageCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldCountRollbackByBroker() throws JCSMPException {
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 1, Long.MAX_VALUE, Duration.ofMinutes(1), null);
+        doThrow(new RollbackException("rolled back")).when(transactedSession).commit();
+
+        assertThrows(RollbackException.class, () -> batcher.consumed(message(10)));
+
+        assertThat(batcher.getRollbackCount(), equalTo(1L));
+        assertThat(batcher.getCommitCount(), equalTo(0L));
+        assertThat(batcher.getPendingMessageCount(), equalTo(0));
+    }
+
+    @Test
+    void shouldCommitPendingMessagesOnClose() throws JCSMPException {
+        Runnable onClose = mock(Runnable.class);
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 10, Long.MAX_VALUE, Duration.ofMinutes(1), null, onClose);
+        batcher.send(message(10), topic);
+
+        batcher.close();
+
+        verify(transactedSession, times(1)).commit();
+        verify(producer).close();
+        verify(onClose).run();
+    }
+
+    @Test
+    void shouldCommitFromSchedulerOnlyWhilePublishing() throws Exception {
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        ArgumentCaptor<Runnable> delayCheck = ArgumentCaptor.forClass(Runnable.class);
+        doReturn(mock(ScheduledFuture.class)).when(taskScheduler).scheduleWithFixedDelay(delayCheck.capture(), any(Duration.class));
+        SolaceTransactionBatcher batcher = new SolaceTransactionBatcher(transactedSession, 10, Long.MAX_VALUE, Duration.ofMillis(20), taskScheduler);
+
+        batcher.send(message(10), topic);
+        Thread.sleep(30);
+        delayCheck.getValue().run();
+        verify(transactedSession, times(1)).commit();
+
+        batcher.execute(() -> batcher.consumed(message(10)));
+        Thread.sleep(30);
+        delayCheck.getValue().run();
+        verify(transactedSession, times(1)).commit();
+
+        batcher.commitIfDue();
+        verify(transactedSession, times(2)).commit();
+    }
+
+    private static BytesXMLMessage message(int size) {
+        BytesXMLMessage message = mock(BytesXMLMessage.class);
+        when(message.getAttachmentContentLength()).thenReturn(size);
+        return message;
+    }
+}
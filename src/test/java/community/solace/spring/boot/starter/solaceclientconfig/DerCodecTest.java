@@ -0,0 +1,37 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DerCodecTest {
+
+    @Test
+    void objectIdentifier_decodesDottedNotation() {
+        final byte[] ecPublicKey = {0x06, 0x07, 0x2a, (byte) 0x86, 0x48, (byte) 0xce, 0x3d, 0x02, 0x01};
+        assertThat(DerCodec.objectIdentifier(DerCodec.read(ecPublicKey)), equalTo("1.2.840.10045.2.1"));
+    }
+
+    @Test
+    void encode_writesLongFormLengths() {
+        final byte[] content = new byte[300];
+        content[299] = 7;
+
+        final byte[] encoded = DerCodec.encode(DerCodec.SEQUENCE, DerCodec.encode(DerCodec.OCTET_STRING, content), new byte[]{DerCodec.NULL, 0x00});
+
+        final List<DerCodec.Element> children = DerCodec.read(encoded).getChildren();
+        assertThat(children.size(), equalTo(2));
+        assertThat(children.get(0).getContent(), equalTo(content));
+        assertThat(children.get(1).getTag(), equalTo(DerCodec.NULL));
+    }
+
+    @Test
+    void read_throwsIllegalArgumentException_ifElementIsTruncated() {
+        assertThrows(IllegalArgumentException.class, () -> DerCodec.read(new byte[]{0x30, 0x05, 0x02, 0x01}));
+        assertThrows(IllegalArgumentException.class, () -> DerCodec.read(new byte[]{0x30, 0x03, 0x02, 0x05, 0x00}).getChildren());
+    }
+}
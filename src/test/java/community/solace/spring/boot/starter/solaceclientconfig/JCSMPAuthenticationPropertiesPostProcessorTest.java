@@ -4,11 +4,14 @@ import com.solacesystems.jcsmp.JCSMPProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.scheduling.TaskScheduler;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.Map;
@@ -187,4 +190,49 @@ class JCSMPAuthenticationPropertiesPostProcessorTest {
         assertEquals(jcsmpProperties, props);
         assertSame(jcsmpProperties, props);
     }
+
+    @Test
+    void postProcessBeforeInitialization_mustReadPemFiles_whenFilePropertiesPresent(@TempDir Path dir) throws IOException {
+        when(keyStoreFactoryMock.createClientKeyStore("privateKeyPemFile", "clientCertificatePemFile")).thenReturn(keyStoreMock);
+        when(keyStoreFactoryMock.getClientKeyStorePassword()).thenReturn(TEST_PASSWORD);
+        when(keyStoreFactoryMock.createTrustStore("trustCertificatePemFile")).thenReturn(trustStoreMock);
+        final JCSMPProperties jcsmpProperties = new JCSMPProperties();
+        jcsmpProperties.setProperty(AUTHENTICATION_SCHEME, AUTHENTICATION_SCHEME_CLIENT_CERTIFICATE);
+
+        final SolaceJavaProperties javaProperties = new SolaceJavaProperties();
+        Map<String, String> javaApiProperties = javaProperties.getApiProperties();
+        javaApiProperties.put(AUTHENTICATION_SCHEME, AUTHENTICATION_SCHEME_CLIENT_CERTIFICATE);
+        javaApiProperties.put(SSL_CLIENT_CERT_FILE, Files.writeString(dir.resolve("tls.crt"), "clientCertificatePemFile").toString());
+        javaApiProperties.put(SSL_PRIVATE_KEY_FILE, Files.writeString(dir.resolve("tls.key"), "privateKeyPemFile").toString());
+        javaApiProperties.put(SSL_TRUST_CERT_FILE, Files.writeString(dir.resolve("ca.crt"), "trustCertificatePemFile").toString());
+
+        final JCSMPProperties extendedJcsmpProperties = uut.addAuthenticationProperties(jcsmpProperties, javaProperties);
+
+        assertThat(extendedJcsmpProperties.getProperty(SSL_IN_MEMORY_KEY_STORE), is(sameInstance(keyStoreMock)));
+        assertThat(extendedJcsmpProperties.getProperty(SSL_IN_MEMORY_TRUST_STORE), is(sameInstance(trustStoreMock)));
+    }
+
+    @Test
+    void readPem_mustPreferInlinePem_overFile() {
+        final SolaceJavaProperties javaProperties = new SolaceJavaProperties();
+        javaProperties.getApiProperties().put(SSL_CLIENT_CERT, "clientCertificatePemString");
+        javaProperties.getApiProperties().put(SSL_CLIENT_CERT_FILE, "/does/not/exist.crt");
+
+        assertThat(JCSMPAuthenticationPropertiesPostProcessor.readPem(javaProperties, SSL_CLIENT_CERT, SSL_CLIENT_CERT_FILE),
+                is(equalTo("clientCertificatePemString")));
+    }
+
+    @Test
+    void readPem_mustReturnNull_whenFileIsMissing() {
+        final SolaceJavaProperties javaProperties = new SolaceJavaProperties();
+        javaProperties.getApiProperties().put(SSL_CLIENT_CERT_FILE, "/does/not/exist.crt");
+
+        assertThat(JCSMPAuthenticationPropertiesPostProcessor.readPem(javaProperties, SSL_CLIENT_CERT, SSL_CLIENT_CERT_FILE),
+                is(nullValue()));
+    }
+
+    @Test
+    void canUnsetProperties_mustPassSelfTest_withBundledJcsmp() {
+        assertThat(JCSMPAuthenticationPropertiesPostProcessor.canUnsetProperties(), is(true));
+    }
 }
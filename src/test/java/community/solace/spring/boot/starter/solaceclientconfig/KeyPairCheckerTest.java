@@ -2,9 +2,17 @@ package community.solace.spring.boot.starter.solaceclientconfig;
 
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
+import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
 
 import static community.solace.spring.boot.starter.solaceclientconfig.KeyPairChecker.isKeyPair;
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +25,12 @@ class KeyPairCheckerTest {
         return kpg.generateKeyPair();
     }
 
+    private KeyPair createEcKeyPair(String curve) throws Exception {
+        var kpg = KeyPairGenerator.getInstance("EC");
+        kpg.initialize(new ECGenParameterSpec(curve));
+        return kpg.generateKeyPair();
+    }
+
     @Test
     void dsa_match() throws Exception {
         var pair = createKeyPair("DSA", 1024);
@@ -56,10 +70,78 @@ class KeyPairCheckerTest {
         assertFalse(isKeyPair(pair1.getPrivate(), pair2.getPublic()));
     }
 
+    @Test
+    void rsa_no_match_ifPublicExponentDiffers() throws Exception {
+        var pair = createKeyPair("RSA", 1024);
+        var modulus = ((RSAPublicKey) pair.getPublic()).getModulus();
+        PublicKey otherExponent = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, BigInteger.valueOf(3)));
+        assertFalse(isKeyPair(pair.getPrivate(), otherExponent));
+    }
+
+    @Test
+    void ec_match_onAllNamedCurves() throws Exception {
+        for (String curve : new String[]{"secp256r1", "secp384r1", "secp521r1"}) {
+            var pair = createEcKeyPair(curve);
+            assertTrue(isKeyPair(pair.getPrivate(), pair.getPublic()), curve);
+        }
+    }
+
+    @Test
+    void ec_no_match_ifCurveDiffers() throws Exception {
+        var pair1 = createEcKeyPair("secp256r1");
+        var pair2 = createEcKeyPair("secp384r1");
+        assertFalse(isKeyPair(pair1.getPrivate(), pair2.getPublic()));
+    }
+
+    @Test
+    void ec_match_byEmbeddedPublicKey() throws Exception {
+        var pair = createEcKeyPair("secp256r1");
+        assertTrue(isKeyPair(withEmbeddedPublicKey(pair.getPrivate(), pair.getPublic()), pair.getPublic()));
+    }
+
+    @Test
+    void ec_no_match_ifEmbeddedPublicKeyDiffers() throws Exception {
+        var pair1 = createEcKeyPair("secp256r1");
+        var pair2 = createEcKeyPair("secp256r1");
+        // the embedded public key decides, even though signing and verifying would match
+        assertFalse(isKeyPair(withEmbeddedPublicKey(pair1.getPrivate(), pair2.getPublic()), pair1.getPublic()));
+    }
+
+    @Test
+    void eddsa_match() throws Exception {
+        for (String algo : new String[]{"Ed25519", "Ed448"}) {
+            var pair = KeyPairGenerator.getInstance(algo).generateKeyPair();
+            assertTrue(isKeyPair(pair.getPrivate(), pair.getPublic()), algo);
+        }
+    }
+
+    @Test
+    void eddsa_no_match() throws Exception {
+        var pair1 = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var pair2 = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var pair3 = KeyPairGenerator.getInstance("Ed448").generateKeyPair();
+        assertFalse(isKeyPair(pair1.getPrivate(), pair2.getPublic()));
+        assertFalse(isKeyPair(pair1.getPrivate(), pair3.getPublic()));
+    }
+
     @Test
     void algo_no_match() throws Exception {
         var pair1 = createKeyPair("RSA", 1024);
         var pair2 = createKeyPair("EC", 256);
         assertFalse(isKeyPair(pair1.getPrivate(), pair2.getPublic()));
     }
+
+    /**
+     * Adds the optional public key field to the SEC1 structure of the private key, as OpenSSL writes it.
+     */
+    private static PrivateKey withEmbeddedPublicKey(PrivateKey privateKey, PublicKey publicKey) throws Exception {
+        var fields = DerCodec.read(privateKey.getEncoded()).getChildren();
+        var sec1Fields = DerCodec.read(fields.get(2).getContent()).getChildren();
+        var subjectPublicKey = DerCodec.read(publicKey.getEncoded()).getChildren().get(1).getEncoded();
+        var sec1 = DerCodec.encode(DerCodec.SEQUENCE, sec1Fields.get(0).getEncoded(), sec1Fields.get(1).getEncoded(),
+                DerCodec.encode(DerCodec.CONTEXT_1, subjectPublicKey));
+        var pkcs8 = DerCodec.encode(DerCodec.SEQUENCE, fields.get(0).getEncoded(), fields.get(1).getEncoded(),
+                DerCodec.encode(DerCodec.OCTET_STRING, sec1));
+        return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+    }
 }
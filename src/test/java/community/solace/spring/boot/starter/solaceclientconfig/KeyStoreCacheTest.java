@@ -0,0 +1,72 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyStoreCacheTest {
+
+    private final KeyStoreCache uut = new KeyStoreCache();
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @Test
+    void get_mustBuildOnce_forSamePem() {
+        final KeyStore first = uut.get("SSL_TRUST_CERT", builder(), "trustCertificatePemString");
+        final KeyStore second = uut.get("SSL_TRUST_CERT", builder(), "trustCertificatePemString");
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(builds.get(), is(equalTo(1)));
+    }
+
+    @Test
+    void get_mustBuildAgain_forOtherPemOrKind() {
+        final KeyStore trustStore = uut.get("SSL_TRUST_CERT", builder(), "trustCertificatePemString");
+
+        assertThat(uut.get("SSL_TRUST_CERT", builder(), "otherTrustCertificatePemString"), is(not(sameInstance(trustStore))));
+        assertThat(uut.get("SSL_CLIENT_CERT", builder(), "trustCertificatePemString"), is(not(sameInstance(trustStore))));
+        assertThat(uut.get("SSL_CLIENT_CERT", builder(), "a", "bc"), is(not(sameInstance(uut.get("SSL_CLIENT_CERT", builder(), "ab", "c")))));
+        assertThat(builds.get(), is(equalTo(5)));
+    }
+
+    @Test
+    void get_mustNotCacheFailedBuild() {
+        assertThat(uut.get("SSL_TRUST_CERT", () -> null, "invalidPem"), is(nullValue()));
+
+        assertThat(uut.get("SSL_TRUST_CERT", builder(), "invalidPem"), is(not(nullValue())));
+        assertThat(uut.size(), is(equalTo(1)));
+    }
+
+    @Test
+    void get_mustReturnReadOnlyKeyStore() throws GeneralSecurityException {
+        final KeyStore keyStore = uut.get("SSL_TRUST_CERT", builder(), "trustCertificatePemString");
+
+        assertThat(keyStore.size(), is(equalTo(0)));
+        assertThrows(KeyStoreException.class, () -> keyStore.setCertificateEntry("ts0", null));
+        assertThrows(KeyStoreException.class, () -> keyStore.deleteEntry("ts0"));
+    }
+
+    private Supplier<KeyStore> builder() {
+        return () -> {
+            builds.incrementAndGet();
+            try {
+                final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+                keyStore.load(null, null);
+                return keyStore;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
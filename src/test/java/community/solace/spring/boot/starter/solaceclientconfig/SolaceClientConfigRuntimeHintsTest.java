@@ -0,0 +1,26 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import com.solacesystems.jcsmp.JCSMPPropertyMap;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.FieldHint;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeHint;
+
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+class SolaceClientConfigRuntimeHintsTest {
+
+    @Test
+    void registerHints_mustRegisterJcsmpPropertyMapFields() {
+        final RuntimeHints hints = new RuntimeHints();
+
+        new SolaceClientConfigRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        final TypeHint typeHint = hints.reflection().getTypeHint(JCSMPPropertyMap.class);
+        assertThat(typeHint.fields().map(FieldHint::getName).collect(Collectors.toList()),
+                containsInAnyOrder("_properties", "_isTrustStoreSet"));
+    }
+}
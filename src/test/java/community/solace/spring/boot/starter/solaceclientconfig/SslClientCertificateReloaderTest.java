@@ -0,0 +1,135 @@
+package community.solace.spring.boot.starter.solaceclientconfig;
+
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.function.Consumer;
+
+import static com.solacesystems.jcsmp.JCSMPProperties.SSL_IN_MEMORY_KEY_STORE;
+import static com.solacesystems.jcsmp.JCSMPProperties.SSL_KEY_STORE_PASSWORD;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SslClientCertificateReloaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private KeyStoreFactory keyStoreFactory;
+
+    @Mock
+    private SpringJCSMPFactory springJCSMPFactory;
+
+    @Mock
+    private KeyStore startupKeyStore;
+
+    @Mock
+    private KeyStore keyStore;
+
+    private Path privateKeyFile;
+    private Path clientCertFile;
+    private SslClientCertificateReloader reloader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        privateKeyFile = Files.writeString(dir.resolve("tls.key"), "privateKeyPem");
+        clientCertFile = Files.writeString(dir.resolve("tls.crt"), "clientCertPem");
+        reloader = new SslClientCertificateReloader(keyStoreFactory, springJCSMPFactory, startupKeyStore, privateKeyFile, clientCertFile);
+    }
+
+    @Test
+    void shouldNotReloadUnchangedFiles() throws IOException {
+        when(keyStoreFactory.createClientKeyStore("privateKeyPem", "clientCertPem")).thenReturn(startupKeyStore);
+        Files.writeString(clientCertFile, "clientCertPem");
+
+        reloader.reloadIfChanged();
+
+        verify(springJCSMPFactory, never()).updateJCSMPProperties(any());
+    }
+
+    @Test
+    void shouldReloadFilesChangedBeforeCreation() {
+        when(keyStoreFactory.createClientKeyStore("privateKeyPem", "clientCertPem")).thenReturn(keyStore);
+
+        reloader.reloadIfChanged();
+        reloader.reloadIfChanged();
+
+        verify(springJCSMPFactory).updateJCSMPProperties(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSwapKeyStoreWhenFilesChanged() throws IOException {
+        when(keyStoreFactory.createClientKeyStore("rotatedPrivateKeyPem", "rotatedClientCertPem")).thenReturn(keyStore);
+        when(keyStoreFactory.getClientKeyStorePassword()).thenReturn("internalPassword");
+        Files.writeString(privateKeyFile, "rotatedPrivateKeyPem");
+        Files.writeString(clientCertFile, "rotatedClientCertPem");
+
+        reloader.reloadIfChanged();
+        reloader.reloadIfChanged();
+
+        ArgumentCaptor<Consumer<JCSMPProperties>> update = ArgumentCaptor.forClass(Consumer.class);
+        verify(springJCSMPFactory).updateJCSMPProperties(update.capture());
+        JCSMPProperties jcsmpProperties = new JCSMPProperties();
+        update.getValue().accept(jcsmpProperties);
+        assertThat(jcsmpProperties.getProperty(SSL_IN_MEMORY_KEY_STORE), is(sameInstance(keyStore)));
+        assertThat(jcsmpProperties.getProperty(SSL_KEY_STORE_PASSWORD), is(equalTo("internalPassword")));
+    }
+
+    @Test
+    void shouldKeepKeyStoreWhenChangedFilesAreInvalid() throws IOException {
+        when(keyStoreFactory.createClientKeyStore("rotatedPrivateKeyPem", "clientCertPem")).thenReturn(null);
+        Files.writeString(privateKeyFile, "rotatedPrivateKeyPem");
+
+        reloader.reloadIfChanged();
+
+        verify(springJCSMPFactory, never()).updateJCSMPProperties(any());
+    }
+
+    @Test
+    void shouldRetryChangedFilesAfterFailedBuild() throws IOException {
+        when(keyStoreFactory.createClientKeyStore("rotatedPrivateKeyPem", "rotatedClientCertPem")).thenReturn(null, keyStore);
+        Files.writeString(privateKeyFile, "rotatedPrivateKeyPem");
+        Files.writeString(clientCertFile, "rotatedClientCertPem");
+
+        reloader.reloadIfChanged();
+        reloader.reloadIfChanged();
+
+        verify(springJCSMPFactory).updateJCSMPProperties(any());
+    }
+
+    @Test
+    void shouldRetryChangedFilesAfterFailedUpdate() throws IOException {
+        when(keyStoreFactory.createClientKeyStore("rotatedPrivateKeyPem", "clientCertPem")).thenReturn(keyStore);
+        doThrow(new IllegalStateException("properties are locked")).doNothing()
+                .when(springJCSMPFactory).updateJCSMPProperties(any());
+        Files.writeString(privateKeyFile, "rotatedPrivateKeyPem");
+
+        reloader.reloadIfChanged();
+        reloader.reloadIfChanged();
+        reloader.reloadIfChanged();
+
+        verify(springJCSMPFactory, times(2)).updateJCSMPProperties(any());
+    }
+}